@@ -0,0 +1,50 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class CpuCycleBenchmark {
+    static final int CYCLES                 = 10_000;
+    static final int INSTRUCTIONS_PER_FRAME = 12;
+
+    @Param({"BLITZ.ch8", "SPACEINVADERS.ch8", "3-corax+.ch8"})
+    public String rom;
+
+    private Keypad keypad;
+    private CPU    cpu;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        keypad = new Keypad();
+        cpu    = new CPU(64, 32, keypad).loadProgram(Programs.load(rom));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int cycle() {
+        for (var i = 0; i < CYCLES; i++) {
+            if (cpu.isPaused()) {
+                // Games waiting for input are let through so the benchmark keeps measuring instructions.
+                keypad.onKeyReleased(KeypadKey.FIVE);
+            }
+
+            cpu.cycle();
+            cpu.setDrawFlag(false);
+
+            if (i % INSTRUCTIONS_PER_FRAME == 0) {
+                cpu.updateTimers();
+            }
+        }
+        return cpu.getPC();
+    }
+}
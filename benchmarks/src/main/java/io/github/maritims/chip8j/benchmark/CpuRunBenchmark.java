@@ -0,0 +1,55 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the interpreter with the recompiler through {@link CPU#run(int)}, which is where compiled blocks are used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class CpuRunBenchmark {
+    static final int CYCLES = 10_000;
+
+    @Param({"BLITZ.ch8", "SPACEINVADERS.ch8", "3-corax+.ch8", "5-quirks.ch8"})
+    public String rom;
+
+    @Param({"false", "true"})
+    public boolean recompile;
+
+    private Keypad keypad;
+    private CPU    cpu;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        keypad = new Keypad();
+        cpu    = new CPU(64, 32, keypad, 0)
+                .loadProgram(Programs.load(rom))
+                .setInstructionsPerFrame(CpuCycleBenchmark.INSTRUCTIONS_PER_FRAME);
+        if (recompile) {
+            cpu.enableRecompiler();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int run() {
+        var executed = 0;
+        while (executed < CYCLES) {
+            if (cpu.isPaused()) {
+                keypad.onKeyReleased(KeypadKey.FIVE);
+            }
+            executed += cpu.run(CYCLES - executed);
+        }
+        cpu.setDrawFlag(false);
+        return cpu.getPC();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.Chip8Machine;
+import io.github.maritims.chip8j.Display;
+import io.github.maritims.chip8j.FrameExchange;
+import io.github.maritims.chip8j.Framebuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class DisplayBenchmark {
+    @Param({"empty", "logo", "full", "hires"})
+    public String frame;
+
+    private Display       display;
+    private Framebuffer   framebuffer;
+    private FrameExchange frames;
+
+    @Setup
+    public void setUp() {
+        // The same canvas as the emulator window, which fits both the 64x32 and the 128x64 mode.
+        display = new Display(Chip8Machine.COLUMNS * 2, Chip8Machine.ROWS * 2, 5);
+        framebuffer = switch (frame) {
+            case "empty" -> new Framebuffer(Chip8Machine.COLUMNS, Chip8Machine.ROWS);
+            case "logo" -> new Chip8Machine().run(Programs.load("IBM Logo.ch8"), 1_000).framebuffer();
+            case "full" -> {
+                var full = new Framebuffer(Chip8Machine.COLUMNS, Chip8Machine.ROWS);
+                for (var y = 0; y < full.getRows(); y++) {
+                    full.xorSpriteRow(0, y, -1L, Long.SIZE, false);
+                }
+                yield full;
+            }
+            case "hires" -> {
+                var hires = new Framebuffer(Chip8Machine.COLUMNS * 2, Chip8Machine.ROWS * 2);
+                for (var y = 0; y < hires.getRows(); y++) {
+                    hires.xorSpriteRow(0, y, 0xAAAAAAAAAAAAAAAAL, Long.SIZE, false);
+                    hires.xorSpriteRow(Long.SIZE, y, 0x5555555555555555L, Long.SIZE, false);
+                }
+                yield hires;
+            }
+            default -> throw new IllegalArgumentException("Unknown frame " + frame);
+        };
+        frames = new FrameExchange(framebuffer);
+    }
+
+    @Benchmark
+    public void render() {
+        // Measure the worst case, where every row has to be redrawn.
+        framebuffer.markAllDirty();
+        display.render(framebuffer);
+    }
+
+    /**
+     * What the emulation thread pays to hand a frame over, and the display thread to take it, on one thread.
+     */
+    @Benchmark
+    public Framebuffer publishAndTake() {
+        framebuffer.markAllDirty();
+        frames.publish(framebuffer);
+        return frames.take();
+    }
+}
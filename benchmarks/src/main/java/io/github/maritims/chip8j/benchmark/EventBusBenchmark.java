@@ -0,0 +1,48 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.event.EventBus;
+import io.github.maritims.chip8j.event.EventType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what publishing to a running {@link EventBus} costs the emulation thread, ending a frame every
+ * {@link #EVENTS_PER_FRAME} events. Run with {@code -prof gc} to confirm that publishing allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class EventBusBenchmark {
+    static final int EVENTS_PER_FRAME = 64;
+
+    private EventBus events;
+    private long     instruction;
+    private long     received;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        events = new EventBus();
+        events.addListener((type, value, instruction, endOfBatch) -> received++);
+        events.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        events.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_FRAME)
+    public boolean publish() {
+        var published = true;
+        for (var i = 0; i < EVENTS_PER_FRAME - 1; i++) {
+            published &= events.publish(EventType.SOUND, i & 1, instruction++);
+        }
+        events.endFrame(0x1234, instruction);
+        return published;
+    }
+}
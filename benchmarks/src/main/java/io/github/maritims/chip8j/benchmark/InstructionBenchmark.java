@@ -0,0 +1,85 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single instructions by looping over a program which is made up of the same instruction repeated. Each
+ * loop also executes one jump, which is negligible next to the repeated instructions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class InstructionBenchmark {
+    static final int REPEATS = 100;
+    static final int CYCLES  = (REPEATS + 1) * 100;
+
+    private CPU dxyn;
+    private CPU ex9e;
+    private CPU fx33;
+    private CPU fx55;
+    private CPU fx65;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // V0 = 10, V1 = 5, VF = 0xAB and I points at the sprite for the digit 0.
+        var drawSetup  = new int[]{0x600A, 0x6105, 0x6FAB, 0xA000};
+        // I points at a scratch area well past the program.
+        var storeSetup = new int[]{0x60FE, 0x61FF, 0x6F7F, 0xA800};
+
+        dxyn = cpu(Programs.repeat(drawSetup, 0xD015, REPEATS));
+        // Key A is never pressed, so nothing is skipped.
+        ex9e = cpu(Programs.repeat(drawSetup, 0xE09E, REPEATS));
+        fx33 = cpu(Programs.repeat(storeSetup, 0xF033, REPEATS));
+        fx55 = cpu(Programs.repeat(storeSetup, 0xFF55, REPEATS));
+        fx65 = cpu(Programs.repeat(storeSetup, 0xFF65, REPEATS));
+    }
+
+    private static CPU cpu(byte[] program) {
+        return new CPU(64, 32, new Keypad()).loadProgram(program);
+    }
+
+    private static int run(CPU cpu) {
+        for (var i = 0; i < CYCLES; i++) {
+            cpu.cycle();
+        }
+        cpu.setDrawFlag(false);
+        return cpu.getPC();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int OP_Dxyn() {
+        return run(dxyn);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int OP_Ex9E() {
+        return run(ex9e);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int OP_Fx33() {
+        return run(fx33);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int OP_Fx55() {
+        return run(fx55);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int OP_Fx65() {
+        return run(fx65);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+final class Programs {
+    private static final int PROGRAM_START = 0x200;
+
+    private Programs() {
+    }
+
+    static byte[] load(String name) {
+        try (var stream = CPU.class.getResourceAsStream("/" + name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("No ROM named " + name + " on the classpath");
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds a program which runs the setup instructions once and then loops over {@code times} copies of the
+     * given opcode forever. One loop iteration therefore executes {@code times + 1} instructions.
+     */
+    static byte[] repeat(int[] setup, int opcode, int times) {
+        var program   = new byte[(setup.length + times + 1) * 2];
+        var offset    = 0;
+        var loopStart = PROGRAM_START + setup.length * 2;
+
+        for (var instruction : setup) {
+            offset = write(program, offset, instruction);
+        }
+        for (var i = 0; i < times; i++) {
+            offset = write(program, offset, opcode);
+        }
+        write(program, offset, 0x1000 | loopStart);
+
+        return program;
+    }
+
+    /**
+     * Builds a program which loops over {@code times} copies of the given sequence of opcodes forever. One loop
+     * iteration therefore executes {@code body.length * times + 1} instructions.
+     */
+    static byte[] loop(int[] body, int times) {
+        var program = new byte[(body.length * times + 1) * 2];
+        var offset  = 0;
+
+        for (var i = 0; i < times; i++) {
+            for (var instruction : body) {
+                offset = write(program, offset, instruction);
+            }
+        }
+        write(program, offset, 0x1000 | PROGRAM_START);
+
+        return program;
+    }
+
+    private static int write(byte[] program, int offset, int opcode) {
+        program[offset]     = (byte) (opcode >>> 8);
+        program[offset + 1] = (byte) opcode;
+        return offset + 2;
+    }
+}
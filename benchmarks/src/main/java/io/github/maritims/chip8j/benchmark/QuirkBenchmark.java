@@ -0,0 +1,78 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.QuirkProfile;
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the instructions which differ between quirk profiles under every profile. Since profiles are resolved when an
+ * instruction is decoded, every profile should run as fast as {@link QuirkProfile#MODERN}, which in turn should run
+ * as fast as the CPU did before profiles existed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class QuirkBenchmark {
+    static final int REPEATS = 20;
+    // I = 0x800, V1 |= V2, V3 &= V4, V5 ^= V6, V7 >>= 1, V9 <<= 1, then store and load V0 to V3.
+    static final int[] BODY   = {0xA800, 0x8121, 0x8342, 0x8563, 0x8786, 0x898E, 0xF355, 0xF365};
+    static final int   CYCLES = (8 * REPEATS + 1) * 100;
+
+    @Param({"COSMAC_VIP", "CHIP_48", "SUPER_CHIP", "MODERN", "XO_CHIP"})
+    public QuirkProfile quirks;
+
+    @Param({"false", "true"})
+    public boolean recompile;
+
+    private Keypad keypad;
+    private CPU    mix;
+    private CPU    rom;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        keypad = new Keypad();
+        mix    = cpu(Programs.loop(BODY, REPEATS), new Keypad());
+        rom    = cpu(Programs.load("5-quirks.ch8"), keypad);
+    }
+
+    private CPU cpu(byte[] program, Keypad keypad) {
+        var cpu = new CPU(64, 32, keypad, 0, quirks)
+                .loadProgram(program)
+                .setInstructionsPerFrame(CpuCycleBenchmark.INSTRUCTIONS_PER_FRAME);
+        if (recompile) {
+            cpu.enableRecompiler();
+        }
+        return cpu;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int mix() {
+        var executed = 0;
+        while (executed < CYCLES) {
+            executed += mix.run(CYCLES - executed);
+        }
+        return mix.getPC();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int quirksRom() {
+        var executed = 0;
+        while (executed < CYCLES) {
+            if (rom.isPaused()) {
+                keypad.onKeyReleased(KeypadKey.FIVE);
+            }
+            executed += rom.run(CYCLES - executed);
+        }
+        rom.setDrawFlag(false);
+        return rom.getPC();
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class SnapshotBenchmark {
+    private CPU        cpu;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(Programs.load("SPACEINVADERS.ch8"));
+        cpu.run(100_000);
+
+        buffer = ByteBuffer.allocateDirect(cpu.getSnapshotSize());
+        cpu.snapshot(buffer);
+    }
+
+    @Benchmark
+    public ByteBuffer snapshot() {
+        buffer.clear();
+        cpu.snapshot(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public CPU restore() {
+        buffer.rewind();
+        cpu.restore(buffer);
+        return cpu;
+    }
+}
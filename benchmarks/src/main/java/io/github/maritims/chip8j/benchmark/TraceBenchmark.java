@@ -0,0 +1,73 @@
+package io.github.maritims.chip8j.benchmark;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.TraceWriter;
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what tracing every instruction to a {@link TraceWriter} costs compared with running untraced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class TraceBenchmark {
+    static final int CYCLES   = 10_000;
+    static final int CAPACITY = 1 << 20;
+
+    @Param({"BLITZ.ch8", "SPACEINVADERS.ch8", "3-corax+.ch8"})
+    public String rom;
+
+    @Param({"false", "true"})
+    public boolean traced;
+
+    private Keypad      keypad;
+    private CPU         cpu;
+    private Path        path;
+    private TraceWriter trace;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        keypad = new Keypad();
+        cpu    = new CPU(64, 32, keypad, 0)
+                .loadProgram(Programs.load(rom))
+                .setInstructionsPerFrame(CpuCycleBenchmark.INSTRUCTIONS_PER_FRAME);
+        if (traced) {
+            path  = Files.createTempFile("chip8j", ".trace");
+            trace = TraceWriter.create(path, CAPACITY);
+            cpu.setTraceWriter(trace);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (trace != null) {
+            trace.close();
+            trace = null;
+            Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int run() {
+        var executed = 0;
+        while (executed < CYCLES) {
+            if (cpu.isPaused()) {
+                keypad.onKeyReleased(KeypadKey.FIVE);
+            }
+            executed += cpu.run(CYCLES - executed);
+        }
+        cpu.setDrawFlag(false);
+        return cpu.getPC();
+    }
+}
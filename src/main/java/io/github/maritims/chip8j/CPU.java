@@ -1,44 +1,107 @@
 package io.github.maritims.chip8j;
 
+import io.github.maritims.chip8j.event.EventBus;
+import io.github.maritims.chip8j.event.EventType;
+import io.github.maritims.chip8j.jfr.KeyWaitEvent;
+import io.github.maritims.chip8j.jit.Recompiler;
 import io.github.maritims.chip8j.keypad.Keypad;
-import io.github.maritims.chip8j.util.FunctionPointer;
-import io.github.maritims.chip8j.util.Observable;
-import io.github.maritims.chip8j.util.Observer;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import io.github.maritims.chip8j.util.SplitMix64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
-public class CPU implements Observable {
+import static io.github.maritims.chip8j.Instruction.*;
+
+public class CPU {
     private static final Logger log = LoggerFactory.getLogger(CPU.class);
 
-    private final int[]          memory = new int[4096];
-    private final Stack<Integer> stack  = new Stack<>();
-    private final int[]          V      = new int[16];
-    private final int[]          pixels;
-    private final Keypad         keypad;
-    private       int            PC     = 0x200;
-    private       boolean        drawFlag;
-    private       int            I;
-    private       int            delayTimer;
-    private       int            soundTimer;
-    private       int            opcode;
-    private       boolean        isPaused;
-
-    private final FunctionPointer[] table  = new FunctionPointer[0xF + 1];
-    private final FunctionPointer[] table0 = new FunctionPointer[0xE + 1];
-    private final FunctionPointer[] table8 = new FunctionPointer[0xE + 1];
-    private final FunctionPointer[] tableE = new FunctionPointer[0xE + 1];
-    private final FunctionPointer[] tableF = new FunctionPointer[0x65 + 1];
-    private       int               x;
-    private       int               nnn;
-    private       int               nn;
-    private       int               y;
-    private       int               n;
+    static final int SNAPSHOT_MAGIC   = 0x43385353;
+    static final int SNAPSHOT_VERSION = 3;
+
+    // Where the 8x10 SUPER-CHIP font is stored, right after the 4x5 font.
+    static final int LARGE_FONT_ADDRESS = 0x50;
+
+    // The longest loop body, in instructions, which is still recognised as waiting on the delay timer.
+    static final int MAX_IDLE_LOOP_LENGTH = 16;
+
+    // The decode cache is allocated in pages of 256 addresses as they are first executed.
+    private static final int DECODE_PAGE_BITS = 8;
+    private static final int DECODE_PAGE_MASK = (1 << DECODE_PAGE_BITS) - 1;
+
+    // Looked up once, so Fx0A only creates an event while a recording has it enabled.
+    private static final jdk.jfr.EventType KEY_WAIT_EVENT = jdk.jfr.EventType.getEventType(KeyWaitEvent.class);
+
+    private final byte[]           memory;
+    private final int              addressMask;
+    private final int[]            stack        = new int[16];
+    private final int[]            V            = new int[16];
+    private final int[]            flags        = new int[16];
+    private final byte[]           audioPattern = new byte[16];
+    private final Framebuffer      framebuffer;
+    private final Keypad           keypad;
+    private final SplitMix64       random;
+    private final QuirkProfile     quirks;
+    private       int              PC           = 0x200;
+    private       int              SP;
+    private       boolean          drawFlag;
+    private       int              I;
+    private       int              delayTimer;
+    private       int              soundTimer;
+    private       int              opcode;
+    private       boolean          isPaused;
+    private       int              keyRegister;
+    private       KeyWaitEvent     keyWait;
+    private       long             instructionCount;
+    private       int              instructionsPerFrame;
+    private       int              instructionsSinceFrame;
+    private       boolean          skipIdleLoops;
+    private       long             skippedInstructions;
+    private       int              planeMask    = 1;
+    private       int              pitch        = 64;
+    private       Recompiler       recompiler;
+    private       TraceWriter      trace;
+    private       EventBus         events;
+    private       boolean          exited;
+
+    // Decoded instructions by page and address, see Instruction. Zero means the slot has not been decoded yet. Paging
+    // keeps a 64 KB XO-CHIP memory from costing a 256 KB cache, when programs only execute a few KB of it.
+    private final int[][]          decoded;
+
+    // Handed to the keypad by every Fx0A, so waiting for a key does not create a new handler each time.
+    private final Consumer<KeypadKey> keyReleased = this::onKeyReleased;
 
     public CPU(int columns, int rows, Keypad keypad) {
-        this.pixels = new int[columns * rows];
-        this.keypad = keypad;
+        this(columns, rows, keypad, new SplitMix64(System.nanoTime() ^ Thread.currentThread().getId()), QuirkProfile.MODERN);
+    }
+
+    public CPU(int columns, int rows, Keypad keypad, long seed) {
+        this(columns, rows, keypad, new SplitMix64(seed), QuirkProfile.MODERN);
+    }
+
+    /**
+     * @param quirks Which variant of the ambiguous instructions to execute. It is fixed for the lifetime of the CPU, so
+     *               it is resolved once per decoded instruction rather than checked on every execution.
+     */
+    public CPU(int columns, int rows, Keypad keypad, long seed, QuirkProfile quirks) {
+        this(columns, rows, keypad, new SplitMix64(seed), quirks);
+    }
+
+    private CPU(int columns, int rows, Keypad keypad, SplitMix64 random, QuirkProfile quirks) {
+        // SUPER-CHIP starts in the given resolution and can switch to twice that.
+        var scale = quirks.supportsSuperChip() ? 2 : 1;
+        this.memory      = new byte[quirks.supportsXoChip() ? 0x10000 : 0x1000];
+        this.addressMask = memory.length - 1;
+        this.decoded     = new int[memory.length >>> DECODE_PAGE_BITS][];
+        this.framebuffer = new Framebuffer(columns * scale, rows * scale, quirks.supportsXoChip() ? 2 : 1);
+        this.keypad      = keypad;
+        this.random      = random;
+        this.quirks      = quirks;
+        framebuffer.setResolution(columns, rows);
 
         var fontSet = new int[]{
                 0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
@@ -58,60 +121,33 @@ public class CPU implements Observable {
                 0xF0, 0x80, 0xF0, 0x80, 0xF0, // E
                 0xF0, 0x80, 0xF0, 0x80, 0x80  // F
         };
-        System.arraycopy(fontSet, 0, memory, 0, fontSet.length);
-
-        table[0x0] = this::table0;
-        table[0x1] = this::OP_1nnn;
-        table[0x2] = this::OP_2nnn;
-        table[0x3] = this::OP_3xnn;
-        table[0x4] = this::OP_4xnn;
-        table[0x5] = this::OP_5xy0;
-        table[0x6] = this::OP_6xnn;
-        table[0x7] = this::OP_7xnn;
-        table[0x8] = this::table8;
-        table[0x9] = this::OP_9xy0;
-        table[0xA] = this::OP_Annn;
-        table[0xB] = this::OP_Bnnn;
-        table[0xC] = this::OP_Cxnn;
-        table[0xD] = this::OP_Dxyn;
-        table[0xE] = this::tableE;
-        table[0xF] = this::tableF;
-
-        for (var i = 0; i <= 0xE; i++) {
-            table0[i] = this::OP_NULL;
-            table8[i] = this::OP_NULL;
-            tableE[i] = this::OP_NULL;
-        }
-
-        table0[0x0] = this::OP_00E0;
-        table0[0xE] = this::OP_00EE;
-
-        table8[0x0] = this::OP_8xy0;
-        table8[0x1] = this::OP_8xy1;
-        table8[0x2] = this::OP_8xy2;
-        table8[0x3] = this::OP_8xy3;
-        table8[0x4] = this::OP_8xy4;
-        table8[0x5] = this::OP_8xy5;
-        table8[0x6] = this::OP_8xy6;
-        table8[0x7] = this::OP_8xy7;
-        table8[0xE] = this::OP_8xyE;
-
-        tableE[0x1] = this::OP_ExA1;
-        tableE[0xE] = this::OP_Ex9E;
-
-        for (var i = 0; i <= 0x65; i++) {
-            tableF[i] = this::OP_NULL;
-        }
-
-        tableF[0x07] = this::OP_Fx07;
-        tableF[0x0A] = this::OP_Fx0A;
-        tableF[0x15] = this::OP_Fx15;
-        tableF[0x18] = this::OP_Fx18;
-        tableF[0x1E] = this::OP_Fx1E;
-        tableF[0x29] = this::OP_Fx29;
-        tableF[0x33] = this::OP_Fx33;
-        tableF[0x55] = this::OP_Fx55;
-        tableF[0x65] = this::OP_Fx65;
+        for (var i = 0; i < fontSet.length; i++) {
+            memory[i] = (byte) fontSet[i];
+        }
+
+        if (quirks.supportsSuperChip()) {
+            var largeFontSet = new int[]{
+                    0xFF, 0xFF, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xFF, 0xFF, // 0
+                    0x18, 0x78, 0x78, 0x18, 0x18, 0x18, 0x18, 0x18, 0xFF, 0xFF, // 1
+                    0xFF, 0xFF, 0x03, 0x03, 0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, // 2
+                    0xFF, 0xFF, 0x03, 0x03, 0xFF, 0xFF, 0x03, 0x03, 0xFF, 0xFF, // 3
+                    0xC3, 0xC3, 0xC3, 0xC3, 0xFF, 0xFF, 0x03, 0x03, 0x03, 0x03, // 4
+                    0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, 0x03, 0x03, 0xFF, 0xFF, // 5
+                    0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, 0xC3, 0xC3, 0xFF, 0xFF, // 6
+                    0xFF, 0xFF, 0x03, 0x03, 0x06, 0x0C, 0x18, 0x18, 0x18, 0x18, // 7
+                    0xFF, 0xFF, 0xC3, 0xC3, 0xFF, 0xFF, 0xC3, 0xC3, 0xFF, 0xFF, // 8
+                    0xFF, 0xFF, 0xC3, 0xC3, 0xFF, 0xFF, 0x03, 0x03, 0xFF, 0xFF, // 9
+                    0x7E, 0xFF, 0xC3, 0xC3, 0xC3, 0xFF, 0xFF, 0xC3, 0xC3, 0xC3, // A
+                    0xFC, 0xFC, 0xC3, 0xC3, 0xFC, 0xFC, 0xC3, 0xC3, 0xFC, 0xFC, // B
+                    0x3C, 0xFF, 0xC3, 0xC0, 0xC0, 0xC0, 0xC0, 0xC3, 0xFF, 0x3C, // C
+                    0xFC, 0xFE, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xFE, 0xFC, // D
+                    0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, // E
+                    0xFF, 0xFF, 0xC0, 0xC0, 0xFF, 0xFF, 0xC0, 0xC0, 0xC0, 0xC0  // F
+            };
+            for (var i = 0; i < largeFontSet.length; i++) {
+                memory[LARGE_FONT_ADDRESS + i] = (byte) largeFontSet[i];
+            }
+        }
     }
 
     public int getOpcode() {
@@ -126,102 +162,201 @@ public class CPU implements Observable {
         this.drawFlag = drawFlag;
     }
 
-    public int[] getPixels() {
-        return pixels;
+    public Framebuffer getFramebuffer() {
+        return framebuffer;
+    }
+
+    public Keypad getKeypad() {
+        return keypad;
+    }
+
+    public QuirkProfile getQuirkProfile() {
+        return quirks;
     }
 
     public boolean isPaused() {
         return isPaused;
     }
 
-    void table0() {
-        table0[opcode & 0x000F].run();
+    public int getV(int x) {
+        return V[x];
+    }
+
+    public int getI() {
+        return I;
+    }
+
+    public int getPC() {
+        return PC;
+    }
+
+    public int getDelayTimer() {
+        return delayTimer;
+    }
+
+    public int getSoundTimer() {
+        return soundTimer;
+    }
+
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * @return The 128 one-bit samples played while the sound timer runs, as loaded by the XO-CHIP {@code F002}.
+     */
+    public byte[] getAudioPattern() {
+        return audioPattern.clone();
     }
 
-    void table8() {
-        table8[opcode & 0x000F].run();
+    /**
+     * @return The XO-CHIP pitch register, where the playback rate of the audio pattern is
+     * {@code 4000 * 2 ^ ((pitch - 64) / 48)} samples per second.
+     */
+    public int getPitch() {
+        return pitch;
     }
 
-    void tableE() {
-        tableE[opcode & 0x000F].run();
+    /**
+     * Lets {@link #run(int)} tick the timers every {@code instructionsPerFrame} instructions. Zero leaves the timers to
+     * the caller.
+     */
+    public CPU setInstructionsPerFrame(int instructionsPerFrame) {
+        if (instructionsPerFrame < 0) {
+            throw new IllegalArgumentException("instructionsPerFrame cannot be negative, but was " + instructionsPerFrame);
+        }
+
+        this.instructionsPerFrame = instructionsPerFrame;
+        return this;
     }
 
-    void tableF() {
-        tableF[opcode & 0x00FF].run();
+    /**
+     * Lets {@link #run(int)} fast-forward through loops which wait for the delay timer, see {@link #run(int)}.
+     */
+    public CPU setSkipIdleLoops(boolean skipIdleLoops) {
+        this.skipIdleLoops = skipIdleLoops;
+        return this;
+    }
+
+    /**
+     * @return How many of the executed instructions were fast-forwarded through instead of executed one by one.
+     */
+    public long getSkippedInstructions() {
+        return skippedInstructions;
+    }
+
+    /**
+     * Lets {@link #run(int)} execute hot basic blocks as compiled JVM bytecode instead of interpreting them.
+     */
+    public CPU enableRecompiler() {
+        if (recompiler == null) {
+            recompiler = new Recompiler(MethodHandles.lookup(), memory, quirks);
+        }
+        return this;
+    }
+
+    public Recompiler getRecompiler() {
+        return recompiler;
+    }
+
+    /**
+     * Records the state before every instruction into {@code trace}, or stops tracing if it is null. While tracing,
+     * {@link #run(int)} neither runs compiled blocks nor skips idle loops, so every instruction gets its own record.
+     */
+    public CPU setTraceWriter(TraceWriter trace) {
+        this.trace = trace;
+        return this;
+    }
+
+    /**
+     * Publishes waiting for a key, the sound starting and stopping, resolution changes and exits to {@code events}. The
+     * bus is only called when one of these happens, so it costs nothing per instruction.
+     */
+    public CPU setEventBus(EventBus events) {
+        this.events = events;
+        return this;
     }
 
     void OP_NULL() {
     }
 
     void OP_00E0() {
-        Arrays.fill(pixels, 0);
+        framebuffer.clear();
         drawFlag = true;
     }
 
     void OP_00EE() {
-        PC       = stack.pop() + 2;
+        if (SP == 0) {
+            throw new IllegalStateException(String.format("Stack underflow at %04X", PC - 2));
+        }
+
+        PC       = stack[--SP];
         drawFlag = true;
     }
 
-    void OP_1nnn() {
+    void OP_1nnn(int nnn) {
         PC = nnn;
     }
 
-    void OP_2nnn() {
-        stack.push(PC - 2);
-        PC = nnn;
+    void OP_2nnn(int nnn) {
+        if (SP == stack.length) {
+            throw new IllegalStateException(String.format("Stack overflow at %04X", PC - 2));
+        }
+
+        stack[SP++] = PC;
+        PC          = nnn;
     }
 
-    void OP_3xnn() {
+    void OP_3xnn(int x, int nn) {
         if (V[x] == nn) {
             PC += 2;
         }
     }
 
-    void OP_4xnn() {
+    void OP_4xnn(int x, int nn) {
         if (V[x] != nn) {
             PC += 2;
         }
     }
 
-    void OP_5xy0() {
+    void OP_5xy0(int x, int y) {
         if (V[x] == V[y]) {
             PC += 2;
         }
     }
 
-    void OP_6xnn() {
+    void OP_6xnn(int x, int nn) {
         V[x] = nn;
     }
 
-    void OP_7xnn() {
+    void OP_7xnn(int x, int nn) {
         var result = V[x] + nn;
         V[x] = result >= 256 ? result - 256 : result;
     }
 
-    void OP_8xy0() {
+    void OP_8xy0(int x, int y) {
         V[x] = V[y];
     }
 
-    void OP_8xy1() {
+    void OP_8xy1(int x, int y) {
         V[x] |= V[y];
     }
 
-    void OP_8xy2() {
+    void OP_8xy2(int x, int y) {
         V[x] &= V[y];
     }
 
-    void OP_8xy3() {
+    void OP_8xy3(int x, int y) {
         V[x] ^= V[y];
     }
 
-    void OP_8xy4() {
+    void OP_8xy4(int x, int y) {
         var result = V[x] + V[y];
         V[x]   = result & 0x00FF;
         V[0xF] = result > 255 ? 1 : 0;
     }
 
-    void OP_8xy5() {
+    void OP_8xy5(int x, int y) {
         var result = V[x] - V[y];
         V[x] = result & 0xFF;
         // In Java, we can represent 0xFF as 1111111.
@@ -231,146 +366,506 @@ public class CPU implements Observable {
         V[0xF] = (result & 0x1FF) == (result & 0xFF) ? 1 : 0;
     }
 
-    void OP_8xy6() {
+    void OP_8xy6(int x, int y) {
         var vx = V[x];
         V[x]   = vx >>> 1;
         V[0xF] = vx & 0x1;
     }
 
-    void OP_8xy7() {
+    void OP_8xy7(int x, int y) {
         V[x]   = (V[y] - V[x]) & 0xFF;
         V[0xF] = V[y] > V[x] ? 1 : 0;
     }
 
-    void OP_8xyE() {
+    void OP_8xyE(int x, int y) {
         var vx = V[x] << 1;
         V[x]   = vx & 0xFF;
         V[0xF] = (vx & 0x100) == 0x100 ? 1 : 0;
     }
 
-    void OP_9xy0() {
+    void OP_9xy0(int x, int y) {
         if (V[x] != V[y]) {
             PC += 2;
         }
     }
 
-    void OP_Annn() {
+    void OP_Annn(int nnn) {
         I = nnn;
     }
 
-    void OP_Bnnn() {
+    void OP_Bnnn(int nnn) {
         PC = V[0] + nnn;
     }
 
-    void OP_Cxnn() {
-        V[x] = new Random().nextInt(256) & nn;
+    void OP_Cxnn(int x, int nn) {
+        V[x] = random.nextByte() & nn;
+    }
+
+    void OP_Dxyn(int x, int y, int n) {
+        // The starting position wraps around the screen, while the sprite itself is clipped at the edges.
+        var columns = framebuffer.getColumns();
+        var rows    = framebuffer.getRows();
+        var targetX = V[x] % columns;
+        var targetY = V[y] % rows;
+        var height  = Math.min(n, rows - targetY);
+
+        var collision = false;
+        for (var row = 0; row < height; row++) {
+            collision |= framebuffer.xorSpriteRow(targetX, targetY + row, memory[I + row & addressMask] & 0xFF, 8, false);
+        }
+
+        V[0xF]   = collision ? 1 : 0;
+        drawFlag = true;
     }
 
-    void OP_Dxyn() {
+    void OP_Ex9E(int x) {
+        if (keypad.isKeyPressed(V[x])) {
+            PC += 2;
+        }
+    }
+
+    void OP_ExA1(int x) {
+        if (!keypad.isKeyPressed(V[x])) {
+            PC += 2;
+        }
+    }
+
+    void OP_Fx07(int x) {
+        V[x] = delayTimer & 0xFF;
+    }
+
+    void OP_Fx0A(int x) {
+        isPaused    = true;
+        keyRegister = x;
+        if (KEY_WAIT_EVENT.isEnabled()) {
+            keyWait = new KeyWaitEvent();
+            keyWait.begin();
+        }
+
+        keypad.onNextKeyReleased(keyReleased);
+        publish(EventType.KEY_WAIT, 1);
+    }
+
+    private void onKeyReleased(KeypadKey keypadKey) {
+        V[keyRegister] = keypadKey.getCosmacVipKeyCode();
+        isPaused       = false;
+
+        if (keyWait != null && keyWait.shouldCommit()) {
+            keyWait.register = keyRegister;
+            keyWait.key      = keypadKey.getCosmacVipKeyCode();
+            keyWait.commit();
+        }
+        keyWait = null;
+        publish(EventType.KEY_WAIT, 0);
+    }
+
+    void OP_Fx15(int x) {
+        delayTimer = V[x];
+    }
+
+    void OP_Fx18(int x) {
+        var wasPlaying = soundTimer > 0;
+        soundTimer = V[x];
+        if (wasPlaying != soundTimer > 0) {
+            publish(EventType.SOUND, soundTimer > 0 ? 1 : 0);
+        }
+    }
+
+    void OP_Fx1E(int x) {
+        I = I + V[x] & addressMask;
+    }
+
+    void OP_Fx29(int x) {
+        I        = V[x] * 5;
+        drawFlag = true;
+    }
+
+    void OP_Fx33(int x) {
+        var number = V[x];
+        memory[I]                   = (byte) (number / 100);
+        memory[I + 1 & addressMask] = (byte) (number / 10 % 10);
+        memory[I + 2 & addressMask] = (byte) (number % 10);
+        invalidate(I, I + 3);
+    }
+
+    void OP_Fx55(int x) {
+        for (var i = 0; i <= x; i++) {
+            memory[I + i & addressMask] = (byte) V[i];
+        }
+        invalidate(I, I + x + 1);
+    }
+
+    void OP_Fx65(int x) {
+        for (var i = 0; i <= x; i++) {
+            V[i] = memory[I + i & addressMask] & 0xFF;
+        }
+    }
+
+    void OP_8xy1_resetVF(int x, int y) {
+        V[x] |= V[y];
         V[0xF] = 0;
+    }
 
-        for (var row = 0; row < n; row++) {
-            var pixel = memory[I + row];
+    void OP_8xy2_resetVF(int x, int y) {
+        V[x] &= V[y];
+        V[0xF] = 0;
+    }
 
-            for (var column = 0; column < 8; column++) {
-                var isPixelSet = (pixel & 0b1000_0000) > 0;
+    void OP_8xy3_resetVF(int x, int y) {
+        V[x] ^= V[y];
+        V[0xF] = 0;
+    }
 
-                if (isPixelSet) {
-                    var targetX = V[x] + column;
-                    var targetY = V[y] + row;
+    void OP_8xy6_shiftVy(int x, int y) {
+        var vy = V[y];
+        V[x]   = vy >>> 1;
+        V[0xF] = vy & 0x1;
+    }
 
-                    if (targetX > 64) {
-                        targetX -= 64;
-                    } else if (targetX < 0) {
-                        targetX += 64;
-                    }
+    void OP_8xyE_shiftVy(int x, int y) {
+        var vy = V[y] << 1;
+        V[x]   = vy & 0xFF;
+        V[0xF] = (vy & 0x100) == 0x100 ? 1 : 0;
+    }
 
-                    if (targetY > 32) {
-                        targetY -= 32;
-                    } else if (targetY < 0) {
-                        targetY += 32;
-                    }
+    void OP_Fx55_incrementI(int x) {
+        OP_Fx55(x);
+        I = I + x + 1 & addressMask;
+    }
 
-                    var pixelLocation = targetX + (targetY * 64);
-                    if (pixelLocation == 1) {
-                        V[0xF] = 1;
-                    }
+    void OP_Fx65_incrementI(int x) {
+        OP_Fx65(x);
+        I = I + x + 1 & addressMask;
+    }
 
-                    pixels[pixelLocation] ^= 1;
-                }
+    void OP_Fx55_incrementIByX(int x) {
+        OP_Fx55(x);
+        I = I + x & addressMask;
+    }
 
-                // Move all bits one step to the left in preparation for checking if the next bit is set.
-                pixel <<= 1;
-            }
+    void OP_Fx65_incrementIByX(int x) {
+        OP_Fx65(x);
+        I = I + x & addressMask;
+    }
+
+    void OP_Bxnn(int x, int xnn) {
+        PC = V[x] + xnn;
+    }
 
-            drawFlag = true;
+    void OP_00Cn(int n) {
+        framebuffer.scrollDown(planeMask, n);
+        drawFlag = true;
+    }
+
+    void OP_00FB() {
+        framebuffer.scrollRight(planeMask, 4);
+        drawFlag = true;
+    }
+
+    void OP_00FC() {
+        framebuffer.scrollLeft(planeMask, 4);
+        drawFlag = true;
+    }
+
+    /**
+     * Exits the interpreter, which here means executing this instruction over and over until the machine is stopped.
+     */
+    void OP_00FD() {
+        PC -= 2;
+        if (!exited) {
+            exited = true;
+            publish(EventType.EXIT, 1);
         }
     }
 
-    void OP_Ex9E() {
-        if (keypad.isKeyPressed(V[x])) {
-            PC += 2;
+    void OP_00FE() {
+        framebuffer.setResolution(framebuffer.getMaxColumns() / 2, framebuffer.getMaxRows() / 2);
+        drawFlag = true;
+        publishResolution();
+    }
+
+    void OP_00FF() {
+        framebuffer.setResolution(framebuffer.getMaxColumns(), framebuffer.getMaxRows());
+        drawFlag = true;
+        publishResolution();
+    }
+
+    /**
+     * Draws a 16x16 sprite of two bytes per row, wrapping and clipping like {@link #OP_Dxyn(int, int, int)}.
+     */
+    void OP_Dxy0(int x, int y) {
+        var columns = framebuffer.getColumns();
+        var rows    = framebuffer.getRows();
+        var targetX = V[x] % columns;
+        var targetY = V[y] % rows;
+        var height  = Math.min(16, rows - targetY);
+
+        var collision = false;
+        for (var row = 0; row < height; row++) {
+            var sprite = (memory[I + row * 2 & addressMask] & 0xFF) << 8 | memory[I + row * 2 + 1 & addressMask] & 0xFF;
+            collision |= framebuffer.xorSpriteRow(targetX, targetY + row, sprite, 16, false);
         }
+
+        V[0xF]   = collision ? 1 : 0;
+        drawFlag = true;
     }
 
-    void OP_ExA1() {
-        if (!keypad.isKeyPressed(V[x])) {
-            PC += 2;
+    void OP_Fx30(int x) {
+        I = LARGE_FONT_ADDRESS + (V[x] & 0xF) * 10;
+    }
+
+    void OP_Fx75(int x) {
+        System.arraycopy(V, 0, flags, 0, x + 1);
+    }
+
+    void OP_Fx85(int x) {
+        System.arraycopy(flags, 0, V, 0, x + 1);
+    }
+
+    void OP_00Dn(int n) {
+        framebuffer.scrollUp(planeMask, n);
+        drawFlag = true;
+    }
+
+    /**
+     * Stores Vx to Vy at I, in descending order if x is greater than y. I is left unchanged.
+     */
+    void OP_5xy2(int x, int y) {
+        var step  = x <= y ? 1 : -1;
+        var count = Math.abs(y - x) + 1;
+        for (var i = 0; i < count; i++) {
+            memory[I + i & addressMask] = (byte) V[x + i * step];
         }
+        invalidate(I, I + count);
     }
 
-    void OP_Fx07() {
-        V[x] = delayTimer & 0xFF;
+    /**
+     * Loads Vx to Vy from I, in descending order if x is greater than y. I is left unchanged.
+     */
+    void OP_5xy3(int x, int y) {
+        var step  = x <= y ? 1 : -1;
+        var count = Math.abs(y - x) + 1;
+        for (var i = 0; i < count; i++) {
+            V[x + i * step] = memory[I + i & addressMask] & 0xFF;
+        }
     }
 
-    void OP_Fx0A() {
-        isPaused = true;
+    /**
+     * Loads I with the 16-bit address in the word following the instruction, and steps over that word.
+     */
+    void OP_F000() {
+        I  = (memory[PC & addressMask] & 0xFF) << 8 | memory[PC + 1 & addressMask] & 0xFF;
+        PC = PC + 2 & addressMask;
+    }
 
-        keypad.onNextKeyReleased(keypadKey -> {
-            V[x]     = keypadKey.getCosmacVipKeyCode();
-            isPaused = false;
-        });
+    void OP_Fn01(int n) {
+        planeMask = n;
     }
 
-    void OP_Fx15() {
-        delayTimer = V[x];
+    void OP_F002() {
+        for (var i = 0; i < audioPattern.length; i++) {
+            audioPattern[i] = memory[I + i & addressMask];
+        }
     }
 
-    void OP_Fx18() {
-        soundTimer = V[x];
+    void OP_Fx3A(int x) {
+        pitch = V[x];
     }
 
-    void OP_Fx1E() {
-        I += V[x];
+    void OP_00E0_planes() {
+        framebuffer.clear(planeMask);
+        drawFlag = true;
     }
 
-    void OP_Fx29() {
-        I        = V[x] * 5;
+    /**
+     * Draws an 8xn sprite into every selected plane, wrapping around the edges. The sprite data of each plane follows
+     * the data of the previous one.
+     */
+    void OP_Dxyn_planes(int x, int y, int n) {
+        var columns = framebuffer.getColumns();
+        var rows    = framebuffer.getRows();
+        var targetX = V[x] % columns;
+        var targetY = V[y] % rows;
+        var address = I;
+
+        var collision = false;
+        for (var plane = 0; plane < framebuffer.getPlanes(); plane++) {
+            if ((planeMask >>> plane & 1) == 0) {
+                continue;
+            }
+            for (var row = 0; row < n; row++) {
+                collision |= framebuffer.xorSpriteRow(plane, targetX, (targetY + row) % rows, memory[address++ & addressMask] & 0xFF, 8, true);
+            }
+        }
+
+        V[0xF]   = collision ? 1 : 0;
         drawFlag = true;
     }
 
-    void OP_Fx33() {
-        var number = V[x];
-        var digits = new LinkedList<Integer>();
-        while (number > 0) {
-            var digit = number % 10;
-            digits.push(digit);
-            number /= 10;
+    /**
+     * Draws a 16x16 sprite into every selected plane like {@link #OP_Dxyn_planes(int, int, int)}.
+     */
+    void OP_Dxy0_planes(int x, int y) {
+        var columns = framebuffer.getColumns();
+        var rows    = framebuffer.getRows();
+        var targetX = V[x] % columns;
+        var targetY = V[y] % rows;
+        var address = I;
+
+        var collision = false;
+        for (var plane = 0; plane < framebuffer.getPlanes(); plane++) {
+            if ((planeMask >>> plane & 1) == 0) {
+                continue;
+            }
+            for (var row = 0; row < 16; row++) {
+                var sprite = (memory[address & addressMask] & 0xFF) << 8 | memory[address + 1 & addressMask] & 0xFF;
+                collision |= framebuffer.xorSpriteRow(plane, targetX, (targetY + row) % rows, sprite, 16, true);
+                address   += 2;
+            }
         }
-        for (var i = 0; i < digits.size(); i++) {
-            memory[I + i] = digits.get(i).byteValue();
+
+        V[0xF]   = collision ? 1 : 0;
+        drawFlag = true;
+    }
+
+    void OP_3xnn_long(int x, int nn) {
+        if (V[x] == nn) {
+            PC += lengthAt(PC);
         }
     }
 
-    void OP_Fx55() {
-        for (var i = 0; i <= x; i++) {
-            memory[I + i] = V[i] & 0xFF;
+    void OP_4xnn_long(int x, int nn) {
+        if (V[x] != nn) {
+            PC += lengthAt(PC);
         }
     }
 
-    void OP_Fx65() {
-        for (var i = 0; i <= x; i++) {
-            V[i] = memory[I + i] & 0xFF;
+    void OP_5xy0_long(int x, int y) {
+        if (V[x] == V[y]) {
+            PC += lengthAt(PC);
+        }
+    }
+
+    void OP_9xy0_long(int x, int y) {
+        if (V[x] != V[y]) {
+            PC += lengthAt(PC);
+        }
+    }
+
+    void OP_Ex9E_long(int x) {
+        if (keypad.isKeyPressed(V[x])) {
+            PC += lengthAt(PC);
+        }
+    }
+
+    void OP_ExA1_long(int x) {
+        if (!keypad.isKeyPressed(V[x])) {
+            PC += lengthAt(PC);
+        }
+    }
+
+    /**
+     * @return The length in bytes of the instruction at the address, which is 4 for {@code F000 nnnn} and 2 otherwise.
+     */
+    private int lengthAt(int address) {
+        return memory[address & addressMask] == (byte) 0xF0 && memory[address + 1 & addressMask] == 0 ? 4 : 2;
+    }
+
+    /**
+     * Executes up to {@code budget} instructions, stopping early if the CPU pauses. Compiled blocks are only used when
+     * they fit in the remaining budget and, if they touch the timers, end before the next timer tick. The result is
+     * therefore identical to calling {@link #cycle()} {@code budget} times.
+     * <p>
+     * With idle loop skipping enabled, every backward jump checks whether it landed on a loop which only reads the
+     * delay timer and compares registers, such as {@code F007 3000 1xxx}. Until the next timer tick, every pass through
+     * such a loop leaves the machine exactly as it found it, so the passes up to the tick are counted as executed
+     * without running them.
+     *
+     * @return The number of instructions executed.
+     */
+    public int run(int budget) {
+        var executed = 0;
+        while (executed < budget && !isPaused) {
+            PC &= addressMask;
+            var from  = PC;
+            var block = recompiler == null || trace != null ? null : recompiler.blockAt(PC);
+            if (block != null && block.length() <= budget - executed && (!block.usesTimers() || instructionsPerFrame == 0 || block.length() <= instructionsPerFrame - instructionsSinceFrame)) {
+                block.run(this);
+                executed += block.length();
+                advanceFrame(block.length());
+            } else {
+                cycle();
+                executed++;
+                advanceFrame(1);
+            }
+
+            if (skipIdleLoops && trace == null && PC <= from && executed < budget) {
+                executed += skipIdleLoop(budget - executed);
+            }
+        }
+        return executed;
+    }
+
+    private int skipIdleLoop(int budget) {
+        var length = idleLoopLength(PC);
+        if (length == 0) {
+            return 0;
+        }
+
+        var untilTick = instructionsPerFrame == 0 ? budget : Math.min(budget, instructionsPerFrame - instructionsSinceFrame);
+        var skipped   = untilTick / length * length;
+        instructionCount    += skipped;
+        skippedInstructions += skipped;
+        advanceFrame(skipped);
+        return skipped;
+    }
+
+    /**
+     * Walks one pass of the loop starting at {@code head} without executing it.
+     *
+     * @return The number of instructions in the pass, or zero if the pass would change anything or leave the loop.
+     */
+    private int idleLoopLength(int head) {
+        var address = head;
+        for (var length = 1; length <= MAX_IDLE_LOOP_LENGTH && address < memory.length - 1; length++) {
+            var instruction = decodedAt(address);
+            var x           = Instruction.x(instruction);
+            var y           = Instruction.y(instruction);
+            switch (Instruction.handler(instruction)) {
+                case OP_1nnn -> {
+                    return Instruction.nnn(instruction) == head ? length : 0;
+                }
+                case OP_Fx07 -> {
+                    if (V[x] != (delayTimer & 0xFF)) {
+                        return 0;
+                    }
+                    address += 2;
+                }
+                case OP_3xnn -> address += V[x] == Instruction.nn(instruction) ? 4 : 2;
+                case OP_4xnn -> address += V[x] != Instruction.nn(instruction) ? 4 : 2;
+                case OP_5xy0 -> address += V[x] == V[y] ? 4 : 2;
+                case OP_9xy0 -> address += V[x] != V[y] ? 4 : 2;
+                case OP_3xnn_long -> address += V[x] == Instruction.nn(instruction) ? 2 + lengthAt(address + 2) : 2;
+                case OP_4xnn_long -> address += V[x] != Instruction.nn(instruction) ? 2 + lengthAt(address + 2) : 2;
+                case OP_5xy0_long -> address += V[x] == V[y] ? 2 + lengthAt(address + 2) : 2;
+                case OP_9xy0_long -> address += V[x] != V[y] ? 2 + lengthAt(address + 2) : 2;
+                default -> {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void advanceFrame(int instructions) {
+        if (instructionsPerFrame == 0) {
+            return;
+        }
+
+        instructionsSinceFrame += instructions;
+        while (instructionsSinceFrame >= instructionsPerFrame) {
+            instructionsSinceFrame -= instructionsPerFrame;
+            updateTimers();
         }
     }
 
@@ -379,16 +874,143 @@ public class CPU implements Observable {
             return;
         }
 
-        opcode = memory[PC] << 8 | (memory[PC + 1] & 0x00FF);
-        x      = (opcode & 0x0F00) >>> 8;
-        y      = (opcode & 0x00F0) >>> 4;
-        n      = opcode & 0x000F;
-        nn     = opcode & 0x00FF;
-        nnn    = opcode & 0x0FFF;
+        PC &= addressMask;
+        var instruction = decodedAt(PC);
+        if (trace != null) {
+            trace.write(instructionCount, PC, Instruction.opcode(instruction), I, SP, delayTimer, soundTimer, V);
+        }
 
+        opcode = Instruction.opcode(instruction);
         PC += 2;
+        instructionCount++;
+
+        execute(instruction);
+    }
+
+    private int decodedAt(int address) {
+        var page = decoded[address >>> DECODE_PAGE_BITS];
+        if (page == null) {
+            page = decoded[address >>> DECODE_PAGE_BITS] = new int[DECODE_PAGE_MASK + 1];
+        }
 
-        table[(opcode & 0xF000) >> 12].run();
+        var instruction = page[address & DECODE_PAGE_MASK];
+        if (instruction == 0) {
+            instruction = page[address & DECODE_PAGE_MASK] = Instruction.decode((memory[address] & 0xFF) << 8 | (memory[address + 1 & addressMask] & 0xFF), quirks);
+        }
+        return instruction;
+    }
+
+    private void execute(int instruction) {
+        var x   = Instruction.x(instruction);
+        var y   = Instruction.y(instruction);
+        var nn  = Instruction.nn(instruction);
+        var nnn = Instruction.nnn(instruction);
+
+        switch (Instruction.handler(instruction)) {
+            case OP_00E0 -> OP_00E0();
+            case OP_00EE -> OP_00EE();
+            case OP_1nnn -> OP_1nnn(nnn);
+            case OP_2nnn -> OP_2nnn(nnn);
+            case OP_3xnn -> OP_3xnn(x, nn);
+            case OP_4xnn -> OP_4xnn(x, nn);
+            case OP_5xy0 -> OP_5xy0(x, y);
+            case OP_6xnn -> OP_6xnn(x, nn);
+            case OP_7xnn -> OP_7xnn(x, nn);
+            case OP_8xy0 -> OP_8xy0(x, y);
+            case OP_8xy1 -> OP_8xy1(x, y);
+            case OP_8xy2 -> OP_8xy2(x, y);
+            case OP_8xy3 -> OP_8xy3(x, y);
+            case OP_8xy4 -> OP_8xy4(x, y);
+            case OP_8xy5 -> OP_8xy5(x, y);
+            case OP_8xy6 -> OP_8xy6(x, y);
+            case OP_8xy7 -> OP_8xy7(x, y);
+            case OP_8xyE -> OP_8xyE(x, y);
+            case OP_9xy0 -> OP_9xy0(x, y);
+            case OP_Annn -> OP_Annn(nnn);
+            case OP_Bnnn -> OP_Bnnn(nnn);
+            case OP_Cxnn -> OP_Cxnn(x, nn);
+            case OP_Dxyn -> OP_Dxyn(x, y, Instruction.n(instruction));
+            case OP_Ex9E -> OP_Ex9E(x);
+            case OP_ExA1 -> OP_ExA1(x);
+            case OP_Fx07 -> OP_Fx07(x);
+            case OP_Fx0A -> OP_Fx0A(x);
+            case OP_Fx15 -> OP_Fx15(x);
+            case OP_Fx18 -> OP_Fx18(x);
+            case OP_Fx1E -> OP_Fx1E(x);
+            case OP_Fx29 -> OP_Fx29(x);
+            case OP_Fx33 -> OP_Fx33(x);
+            case OP_Fx55 -> OP_Fx55(x);
+            case OP_Fx65 -> OP_Fx65(x);
+            case OP_8xy1_resetVF -> OP_8xy1_resetVF(x, y);
+            case OP_8xy2_resetVF -> OP_8xy2_resetVF(x, y);
+            case OP_8xy3_resetVF -> OP_8xy3_resetVF(x, y);
+            case OP_8xy6_shiftVy -> OP_8xy6_shiftVy(x, y);
+            case OP_8xyE_shiftVy -> OP_8xyE_shiftVy(x, y);
+            case OP_Fx55_incrementI -> OP_Fx55_incrementI(x);
+            case OP_Fx65_incrementI -> OP_Fx65_incrementI(x);
+            case OP_Fx55_incrementIByX -> OP_Fx55_incrementIByX(x);
+            case OP_Fx65_incrementIByX -> OP_Fx65_incrementIByX(x);
+            case OP_Bxnn -> OP_Bxnn(x, nnn);
+            case OP_00Cn -> OP_00Cn(Instruction.n(instruction));
+            case OP_00FB -> OP_00FB();
+            case OP_00FC -> OP_00FC();
+            case OP_00FD -> OP_00FD();
+            case OP_00FE -> OP_00FE();
+            case OP_00FF -> OP_00FF();
+            case OP_Dxy0 -> OP_Dxy0(x, y);
+            case OP_Fx30 -> OP_Fx30(x);
+            case OP_Fx75 -> OP_Fx75(x);
+            case OP_Fx85 -> OP_Fx85(x);
+            case OP_00Dn -> OP_00Dn(Instruction.n(instruction));
+            case OP_5xy2 -> OP_5xy2(x, y);
+            case OP_5xy3 -> OP_5xy3(x, y);
+            case OP_F000 -> OP_F000();
+            case OP_Fn01 -> OP_Fn01(x);
+            case OP_F002 -> OP_F002();
+            case OP_Fx3A -> OP_Fx3A(x);
+            case OP_00E0_planes -> OP_00E0_planes();
+            case OP_Dxyn_planes -> OP_Dxyn_planes(x, y, Instruction.n(instruction));
+            case OP_Dxy0_planes -> OP_Dxy0_planes(x, y);
+            case OP_3xnn_long -> OP_3xnn_long(x, nn);
+            case OP_4xnn_long -> OP_4xnn_long(x, nn);
+            case OP_5xy0_long -> OP_5xy0_long(x, y);
+            case OP_9xy0_long -> OP_9xy0_long(x, y);
+            case OP_Ex9E_long -> OP_Ex9E_long(x);
+            case OP_ExA1_long -> OP_ExA1_long(x);
+            default -> OP_NULL();
+        }
+    }
+
+    /**
+     * Drops the decoded instructions overlapping the written addresses {@code [from, to)}. An instruction starting one
+     * byte before {@code from} also covers the first written byte, and so does the instruction at the last address when
+     * the write starts at zero. Writes running past the end of memory wrap around to its start.
+     */
+    private void invalidate(int from, int to) {
+        forget(Math.max(0, from - 1), Math.min(memory.length, to));
+        if (from == 0) {
+            forget(memory.length - 1, memory.length);
+        }
+        if (recompiler != null) {
+            recompiler.invalidate(from, to);
+        }
+        if (to > memory.length) {
+            invalidate(0, to - memory.length);
+        }
+    }
+
+    /**
+     * Clears the decode cache slots {@code [from, to)}, skipping pages which were never allocated.
+     */
+    private void forget(int from, int to) {
+        for (var address = from; address < to; ) {
+            var page = decoded[address >>> DECODE_PAGE_BITS];
+            var end  = Math.min(to, (address | DECODE_PAGE_MASK) + 1);
+            if (page != null) {
+                Arrays.fill(page, address & DECODE_PAGE_MASK, end - (address & ~DECODE_PAGE_MASK), 0);
+            }
+            address = end;
+        }
     }
 
     public void updateTimers() {
@@ -396,32 +1018,141 @@ public class CPU implements Observable {
             delayTimer--;
         }
 
-        if (soundTimer > 0) {
-            soundTimer--;
+        if (soundTimer > 0 && --soundTimer == 0) {
+            publish(EventType.SOUND, 0);
+        }
+    }
+
+    private void publish(EventType type, int value) {
+        if (events != null) {
+            events.publish(type, value, instructionCount);
         }
     }
 
+    private void publishResolution() {
+        publish(EventType.RESOLUTION, framebuffer.getColumns() << 8 | framebuffer.getRows());
+    }
+
     public CPU loadProgram(byte[] program) {
-        for (var i = 0; i < program.length; i++) {
-            memory[0x200 + i] = program[i] & 0x00FF;
+        if (program.length > memory.length - 0x200) {
+            throw new IllegalArgumentException("Program is " + program.length + " bytes, but only " + (memory.length - 0x200) + " bytes are available");
         }
+
+        System.arraycopy(program, 0, memory, 0x200, program.length);
+        invalidate(0x200, 0x200 + program.length);
         return this;
     }
 
-    private final List<Observer> observers = new ArrayList<>();
-
-    @Override
-    public void registerObservers(Observer... observers) {
-        this.observers.addAll(Arrays.asList(observers));
+    /**
+     * @return The number of bytes {@link #snapshot(ByteBuffer)} writes.
+     */
+    public int getSnapshotSize() {
+        return Integer.BYTES * 2                      // Magic and version
+                + Integer.BYTES + memory.length       // Memory
+                + V.length                            // V
+                + Short.BYTES * 2                     // I and PC
+                + 1 + Short.BYTES * stack.length      // SP and stack
+                + 2                                   // Timers
+                + Long.BYTES + Integer.BYTES          // Instruction count and instructions since the last frame
+                + Short.BYTES + 3                     // Opcode, draw flag, paused and the register waiting for a key
+                + Long.BYTES                          // Random number generator
+                + Short.BYTES                         // Keypad
+                + flags.length                        // RPL flags
+                + 2 + audioPattern.length             // Plane mask, pitch and audio pattern
+                + framebuffer.getSnapshotSize();
     }
 
-    @Override
-    public void removeObservers(Observer... observers) {
-        this.observers.removeAll(Arrays.asList(observers));
+    /**
+     * Writes the complete machine state to the buffer in a versioned binary format, starting at its position. Nothing
+     * is allocated, so snapshots can be taken every frame into a reused buffer.
+     *
+     * @throws java.nio.BufferOverflowException If the buffer has less than {@link #getSnapshotSize()} bytes remaining.
+     */
+    public void snapshot(ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC)
+                .putInt(SNAPSHOT_VERSION)
+                .putInt(memory.length)
+                .put(memory);
+        for (var register : V) {
+            buffer.put((byte) register);
+        }
+        buffer.putShort((short) I)
+                .putShort((short) PC)
+                .put((byte) SP);
+        for (var address : stack) {
+            buffer.putShort((short) address);
+        }
+        buffer.put((byte) delayTimer)
+                .put((byte) soundTimer)
+                .putLong(instructionCount)
+                .putInt(instructionsSinceFrame)
+                .putShort((short) opcode)
+                .put((byte) (drawFlag ? 1 : 0))
+                .put((byte) (isPaused ? 1 : 0))
+                .put((byte) keyRegister)
+                .putLong(random.getState())
+                .putShort((short) keypad.getPressedKeys());
+        for (var flag : flags) {
+            buffer.put((byte) flag);
+        }
+        buffer.put((byte) planeMask)
+                .put((byte) pitch)
+                .put(audioPattern);
+        framebuffer.snapshot(buffer);
     }
 
-    @Override
-    public void notifyObservers() {
-        observers.forEach(observer -> observer.update(this));
+    /**
+     * Restores a state written by {@link #snapshot(ByteBuffer)}, starting at the position of the buffer. The decode
+     * cache and any compiled blocks are discarded, and the keypad is set to the recorded keys.
+     *
+     * @throws IllegalArgumentException If the snapshot has another format or was taken of a differently sized machine.
+     */
+    public void restore(ByteBuffer buffer) {
+        var magic   = buffer.getInt();
+        var version = buffer.getInt();
+        if (magic != SNAPSHOT_MAGIC || version != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported snapshot %08X version %d", magic, version));
+        }
+
+        var memoryLength = buffer.getInt();
+        if (memoryLength != memory.length) {
+            throw new IllegalArgumentException("The snapshot has " + memoryLength + " bytes of memory, but the CPU has " + memory.length);
+        }
+
+        buffer.get(memory);
+        for (var x = 0; x < V.length; x++) {
+            V[x] = buffer.get() & 0xFF;
+        }
+        I  = buffer.getShort() & addressMask;
+        PC = buffer.getShort() & addressMask;
+        SP = buffer.get();
+        for (var i = 0; i < stack.length; i++) {
+            stack[i] = buffer.getShort() & 0xFFFF;
+        }
+        delayTimer             = buffer.get() & 0xFF;
+        soundTimer             = buffer.get() & 0xFF;
+        instructionCount       = buffer.getLong();
+        instructionsSinceFrame = buffer.getInt();
+        opcode                 = buffer.getShort() & 0xFFFF;
+        drawFlag               = buffer.get() != 0;
+        isPaused               = buffer.get() != 0;
+        keyRegister            = buffer.get();
+        random.setState(buffer.getLong());
+        keypad.setPressedKeys(buffer.getShort() & 0xFFFF);
+        for (var i = 0; i < flags.length; i++) {
+            flags[i] = buffer.get() & 0xFF;
+        }
+        planeMask = buffer.get();
+        pitch     = buffer.get() & 0xFF;
+        buffer.get(audioPattern);
+        framebuffer.restore(buffer);
+
+        forget(0, memory.length);
+        if (recompiler != null) {
+            recompiler.reset();
+        }
+        keyWait = null;
+        exited  = false;
+        keypad.onNextKeyReleased(isPaused ? keyReleased : null);
     }
-}
\ No newline at end of file
+}
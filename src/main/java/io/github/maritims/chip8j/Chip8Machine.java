@@ -0,0 +1,183 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
+
+import java.util.List;
+
+/**
+ * Runs a {@link CPU} without any Swing dependencies. Instructions are executed back to back and the 60 Hz timers are
+ * derived from the instruction count, so a run is only bound by the speed of the host.
+ */
+public class Chip8Machine {
+    public static final int COLUMNS                        = 64;
+    public static final int ROWS                           = 32;
+    public static final int TIMER_FREQUENCY                = 60;
+    public static final int DEFAULT_INSTRUCTIONS_PER_FRAME = 12;
+
+    // How many frames run between two updates of the metrics, which is one emulated second.
+    private static final int METRICS_FRAMES = TIMER_FREQUENCY;
+
+    private final Keypad           keypad;
+    private final int              instructionsPerFrame;
+    private final boolean          useRecompiler;
+    private final boolean          skipIdleLoops;
+    private final QuirkProfile     quirks;
+    private       CPU              cpu;
+    private       List<InputEvent> inputs = List.of();
+    private       int              nextInput;
+    private       EmulatorMetrics  metrics;
+    private       long             recordedFrames;
+
+    public Chip8Machine() {
+        this(DEFAULT_INSTRUCTIONS_PER_FRAME);
+    }
+
+    public Chip8Machine(int instructionsPerFrame) {
+        this(instructionsPerFrame, false);
+    }
+
+    /**
+     * @param useRecompiler Whether hot basic blocks are compiled to JVM bytecode. This only affects speed, as the
+     *                      compiled blocks leave the machine in the same state as the interpreter.
+     */
+    public Chip8Machine(int instructionsPerFrame, boolean useRecompiler) {
+        this(instructionsPerFrame, useRecompiler, false);
+    }
+
+    /**
+     * @param skipIdleLoops Whether loops waiting for the delay timer are fast-forwarded to the next timer tick, see
+     *                      {@link CPU#run(int)}. Like the recompiler, this only affects speed.
+     */
+    public Chip8Machine(int instructionsPerFrame, boolean useRecompiler, boolean skipIdleLoops) {
+        this(instructionsPerFrame, useRecompiler, skipIdleLoops, QuirkProfile.MODERN);
+    }
+
+    public Chip8Machine(int instructionsPerFrame, boolean useRecompiler, boolean skipIdleLoops, QuirkProfile quirks) {
+        if (instructionsPerFrame < 1) {
+            throw new IllegalArgumentException("instructionsPerFrame must be positive, but was " + instructionsPerFrame);
+        }
+
+        this.keypad               = new Keypad();
+        this.instructionsPerFrame = instructionsPerFrame;
+        this.useRecompiler        = useRecompiler;
+        this.skipIdleLoops        = skipIdleLoops;
+        this.quirks               = quirks;
+    }
+
+    public Keypad getKeypad() {
+        return keypad;
+    }
+
+    public CPU getCpu() {
+        return cpu;
+    }
+
+    /**
+     * Records the runs to {@code metrics}, once per emulated second and when a run ends.
+     */
+    public Chip8Machine setMetrics(EmulatorMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Loads the program into a fresh CPU and executes at most {@code cycleBudget} instructions. The run ends early if
+     * the program waits for a key, since nothing can press one in a headless run.
+     */
+    public MachineState run(byte[] program, long cycleBudget) {
+        return start(new CPU(COLUMNS, ROWS, keypad, System.nanoTime(), quirks), program, cycleBudget, List.of());
+    }
+
+    /**
+     * Same as {@link #run(byte[], long)}, but seeds the random number generator so the run is reproducible.
+     */
+    public MachineState run(byte[] program, long cycleBudget, long seed) {
+        return start(new CPU(COLUMNS, ROWS, keypad, seed, quirks), program, cycleBudget, List.of());
+    }
+
+    /**
+     * Same as {@link #run(byte[], long, long)}, but also feeds the keypad from a script. Each event is applied once the
+     * CPU has executed the number of instructions it is stamped with, and timer ticks tick the timers on top of the
+     * ones derived from the instruction count. While the program waits for a key, the next event is applied straight
+     * away, since the instruction count cannot advance until a key is released.
+     *
+     * @param inputs The events, ordered by instruction.
+     */
+    public MachineState run(byte[] program, long cycleBudget, long seed, List<InputEvent> inputs) {
+        return start(new CPU(COLUMNS, ROWS, keypad, seed, quirks), program, cycleBudget, inputs);
+    }
+
+    private MachineState start(CPU cpu, byte[] program, long cycleBudget, List<InputEvent> inputs) {
+        this.cpu            = cpu.loadProgram(program).setInstructionsPerFrame(instructionsPerFrame).setSkipIdleLoops(skipIdleLoops);
+        this.inputs         = inputs;
+        this.nextInput      = 0;
+        this.recordedFrames = 0;
+        if (useRecompiler) {
+            cpu.enableRecompiler();
+        }
+        return resume(cycleBudget);
+    }
+
+    /**
+     * Continues executing the currently loaded program for at most {@code cycleBudget} more instructions.
+     */
+    public MachineState resume(long cycleBudget) {
+        if (cpu == null) {
+            throw new IllegalStateException("No program has been loaded");
+        }
+
+        var remaining = cycleBudget;
+        while (remaining > 0) {
+            applyDueInputs();
+
+            if (cpu.isPaused()) {
+                if (nextInput == inputs.size()) {
+                    break;
+                }
+                apply(inputs.get(nextInput++));
+                continue;
+            }
+
+            var untilInput = nextInput < inputs.size() ? inputs.get(nextInput).instruction() - cpu.getInstructionCount() : Long.MAX_VALUE;
+            var budget     = Math.min(Math.min(remaining, untilInput), Integer.MAX_VALUE);
+            if (metrics != null) {
+                budget = Math.min(budget, (long) METRICS_FRAMES * instructionsPerFrame);
+            }
+            remaining -= cpu.run((int) budget);
+            recordMetrics();
+        }
+        applyDueInputs();
+        cpu.setDrawFlag(false);
+        recordMetrics();
+
+        return MachineState.of(cpu);
+    }
+
+    private void recordMetrics() {
+        if (metrics == null) {
+            return;
+        }
+
+        var now    = System.nanoTime();
+        var frames = cpu.getInstructionCount() / instructionsPerFrame;
+        metrics.recordFrames(frames - recordedFrames, cpu.getInstructionCount(), cpu.getSkippedInstructions(), now);
+        metrics.recordKeyWait(cpu.isPaused(), now);
+        recordedFrames = frames;
+    }
+
+    private void applyDueInputs() {
+        while (nextInput < inputs.size() && inputs.get(nextInput).instruction() <= cpu.getInstructionCount()) {
+            apply(inputs.get(nextInput++));
+        }
+    }
+
+    private void apply(InputEvent input) {
+        if (input.isTimerTick()) {
+            cpu.updateTimers();
+        } else {
+            input.applyTo(keypad);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.maritims.chip8j;
+
+import static io.github.maritims.chip8j.Instruction.*;
+
+/**
+ * Turns opcodes into the mnemonics of Cowgod's CHIP-8 reference, extended with the SUPER-CHIP and XO-CHIP
+ * instructions. Opcodes which are not instructions are shown as data.
+ */
+public final class Disassembler {
+    private Disassembler() {
+    }
+
+    /**
+     * @return The mnemonic of the opcode. The second word of {@code F000 nnnn} is not part of the opcode, so it is
+     * shown as {@code LD I, long}.
+     */
+    public static String disassemble(int opcode) {
+        var instruction = Instruction.decode(opcode);
+        var x           = x(instruction);
+        var y           = y(instruction);
+        var n           = n(instruction);
+        var nn          = String.format("0x%02X", nn(instruction));
+        var nnn         = String.format("0x%03X", nnn(instruction));
+
+        return switch (handler(instruction)) {
+            case OP_00E0 -> "CLS";
+            case OP_00EE -> "RET";
+            case OP_1nnn -> "JP " + nnn;
+            case OP_2nnn -> "CALL " + nnn;
+            case OP_3xnn -> "SE V" + hex(x) + ", " + nn;
+            case OP_4xnn -> "SNE V" + hex(x) + ", " + nn;
+            case OP_5xy0 -> "SE V" + hex(x) + ", V" + hex(y);
+            case OP_6xnn -> "LD V" + hex(x) + ", " + nn;
+            case OP_7xnn -> "ADD V" + hex(x) + ", " + nn;
+            case OP_8xy0 -> "LD V" + hex(x) + ", V" + hex(y);
+            case OP_8xy1 -> "OR V" + hex(x) + ", V" + hex(y);
+            case OP_8xy2 -> "AND V" + hex(x) + ", V" + hex(y);
+            case OP_8xy3 -> "XOR V" + hex(x) + ", V" + hex(y);
+            case OP_8xy4 -> "ADD V" + hex(x) + ", V" + hex(y);
+            case OP_8xy5 -> "SUB V" + hex(x) + ", V" + hex(y);
+            case OP_8xy6 -> "SHR V" + hex(x) + ", V" + hex(y);
+            case OP_8xy7 -> "SUBN V" + hex(x) + ", V" + hex(y);
+            case OP_8xyE -> "SHL V" + hex(x) + ", V" + hex(y);
+            case OP_9xy0 -> "SNE V" + hex(x) + ", V" + hex(y);
+            case OP_Annn -> "LD I, " + nnn;
+            case OP_Bnnn -> "JP V0, " + nnn;
+            case OP_Cxnn -> "RND V" + hex(x) + ", " + nn;
+            case OP_Dxyn, OP_Dxy0 -> "DRW V" + hex(x) + ", V" + hex(y) + ", " + n;
+            case OP_Ex9E -> "SKP V" + hex(x);
+            case OP_ExA1 -> "SKNP V" + hex(x);
+            case OP_Fx07 -> "LD V" + hex(x) + ", DT";
+            case OP_Fx0A -> "LD V" + hex(x) + ", K";
+            case OP_Fx15 -> "LD DT, V" + hex(x);
+            case OP_Fx18 -> "LD ST, V" + hex(x);
+            case OP_Fx1E -> "ADD I, V" + hex(x);
+            case OP_Fx29 -> "LD F, V" + hex(x);
+            case OP_Fx33 -> "LD B, V" + hex(x);
+            case OP_Fx55 -> "LD [I], V" + hex(x);
+            case OP_Fx65 -> "LD V" + hex(x) + ", [I]";
+            case OP_00Cn -> "SCD " + n;
+            case OP_00FB -> "SCR";
+            case OP_00FC -> "SCL";
+            case OP_00FD -> "EXIT";
+            case OP_00FE -> "LOW";
+            case OP_00FF -> "HIGH";
+            case OP_Fx30 -> "LD HF, V" + hex(x);
+            case OP_Fx75 -> "LD R, V" + hex(x);
+            case OP_Fx85 -> "LD V" + hex(x) + ", R";
+            case OP_00Dn -> "SCU " + n;
+            case OP_5xy2 -> "SAVE V" + hex(x) + " - V" + hex(y);
+            case OP_5xy3 -> "LOAD V" + hex(x) + " - V" + hex(y);
+            case OP_F000 -> "LD I, long";
+            case OP_Fn01 -> "PLANE " + x;
+            case OP_F002 -> "AUDIO";
+            case OP_Fx3A -> "PITCH V" + hex(x);
+            default -> String.format("DW 0x%04X", opcode);
+        };
+    }
+
+    private static char hex(int register) {
+        return Character.toUpperCase(Character.forDigit(register, 16));
+    }
+}
@@ -1,63 +1,166 @@
 package io.github.maritims.chip8j;
 
+import io.github.maritims.chip8j.jfr.RenderEvent;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
+/**
+ * Draws a {@link Framebuffer} into a canvas of a fixed size. Each framebuffer pixel becomes a square of
+ * {@code canvas width / framebuffer columns} canvas pixels, so switching between the 64x32 and 128x64 modes only changes
+ * how large the squares are, and the canvas is never reallocated. The color of a square is looked up in a palette by
+ * the bits the pixel has set in each plane.
+ */
 public class Display extends JPanel {
     private static final Logger log = LoggerFactory.getLogger(Display.class);
 
-    private final int           columns;
-    private final int           scale;
-    private final BufferedImage canvas;
+    private static final int OFF = Color.BLACK.getRGB();
+    private static final int ON  = Color.WHITE.getRGB();
 
+    private final    BufferedImage   canvas;
+    private final    int[]           raster;
+    private volatile FrameExchange   frames;
+    private volatile EmulatorMetrics metrics;
+
+    // Replaced rather than written to, so the thread drawing always sees a whole palette.
+    private volatile int[]           palette = {OFF, ON, new Color(0xFF6600).getRGB(), new Color(0x662200).getRGB()};
+
+    /**
+     * @param columns The columns of the largest framebuffer to be shown. Smaller framebuffers must divide it evenly.
+     * @param rows    The rows of the largest framebuffer to be shown.
+     * @param scale   The size of a pixel of the largest framebuffer on screen.
+     */
     public Display(int columns, int rows, int scale) {
-        this.columns = columns;
-        this.scale   = scale;
-        this.canvas  = new BufferedImage(this.columns * scale, rows * scale, BufferedImage.TYPE_INT_ARGB);
+        this.canvas = new BufferedImage(columns * scale, rows * scale, BufferedImage.TYPE_INT_RGB);
+        this.raster = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
 
-        setPreferredSize(new Dimension(this.columns * scale, rows * scale));
+        setPreferredSize(new Dimension(columns * scale, rows * scale));
         setDoubleBuffered(true);
 
         clear();
     }
 
+    /**
+     * Shows the frames published to {@code frames} from then on, or stops showing frames if it is null. Any thread may
+     * publish frames and call {@link #repaint()}, since they are only taken and drawn on the event dispatch thread.
+     *
+     * @param metrics Records how long each frame taken took to draw and show, unless it is null.
+     */
+    public void show(FrameExchange frames, EmulatorMetrics metrics) {
+        this.metrics = metrics;
+        this.frames  = frames;
+    }
+
     public void clear() {
-        for (var x = 0; x < canvas.getWidth(); x++) {
-            for (var y = 0; y < canvas.getHeight(); y++) {
-                canvas.setRGB(x, y, Color.BLACK.getRGB());
-            }
-        }
+        Arrays.fill(raster, palette[0]);
         repaint();
     }
 
-    private void draw(int[] pixelBuffer) {
-        for (var i = 0; i < pixelBuffer.length; i++) {
-            var x = (i % columns) * scale;
-            var y = ((int) Math.floor((double) i / columns)) * scale;
+    /**
+     * Sets the colors of pixels set in no plane, only the first plane, only the second plane and both planes. The
+     * colors are used for the rows drawn from then on.
+     */
+    public void setPalette(Color off, Color first, Color second, Color both) {
+        palette = new int[]{off.getRGB(), first.getRGB(), second.getRGB(), both.getRGB()};
+    }
 
-            if (pixelBuffer[i] != 1) {
-                continue;
-            }
+    /**
+     * Redraws the rows which changed since the last call straight into the canvas, and repaints them with a single
+     * repaint request.
+     *
+     * @throws IllegalArgumentException If the framebuffer has more columns than the canvas.
+     */
+    public void render(Framebuffer framebuffer) {
+        var dirtyRows = draw(framebuffer);
+        if (dirtyRows == 0) {
+            return;
+        }
+
+        var scale    = canvas.getWidth() / framebuffer.getColumns();
+        var firstRow = Long.numberOfTrailingZeros(dirtyRows);
+        var lastRow  = Long.SIZE - 1 - Long.numberOfLeadingZeros(dirtyRows);
+        repaint(0, firstRow * scale, canvas.getWidth(), (lastRow - firstRow + 1) * scale);
+    }
+
+    /**
+     * Redraws the rows which changed since the last call into the canvas without repainting.
+     *
+     * @return The rows which were redrawn.
+     */
+    private long draw(Framebuffer framebuffer) {
+        var dirtyRows = framebuffer.takeDirtyRows();
+        if (dirtyRows == 0) {
+            return 0;
+        }
 
-            var graphics = canvas.createGraphics();
-            graphics.setColor(Color.WHITE);
-            graphics.fillRect(x, y, scale, scale);
-            repaint();
+        var scale = canvas.getWidth() / framebuffer.getColumns();
+        if (scale == 0) {
+            throw new IllegalArgumentException("The framebuffer has " + framebuffer.getColumns() + " columns, but the display only fits " + canvas.getWidth());
         }
+
+        var remaining = dirtyRows;
+        while (remaining != 0) {
+            var row = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            drawRow(framebuffer, row, scale);
+        }
+        return dirtyRows;
     }
 
-    public void render(int[] pixels) {
-        clear();
-        draw(pixels);
+    private void drawRow(Framebuffer framebuffer, int row, int scale) {
+        var width  = canvas.getWidth();
+        var offset = row * scale * width;
+
+        // Draw the first line of the scaled row, then copy it to the remaining lines.
+        var palette = this.palette;
+        var planes  = framebuffer.getPlanes();
+        for (var index = 0; index < framebuffer.getWordsPerRow(); index++) {
+            var first  = framebuffer.getWord(0, row, index);
+            var second = planes > 1 ? framebuffer.getWord(1, row, index) : 0;
+            var x      = index * Long.SIZE * scale;
+            for (var bit = 0; bit < Long.SIZE; bit++) {
+                var color = palette[(int) (first << bit >>> 63) | (int) (second << bit >>> 63) << 1];
+                Arrays.fill(raster, offset + x, offset + x + scale, color);
+                x += scale;
+            }
+        }
+        for (var line = 1; line < scale; line++) {
+            System.arraycopy(raster, offset, raster, offset + line * width, width);
+        }
     }
 
+    /**
+     * Draws the latest frame, if there is a new one, and shows the canvas. Only a paint which took a frame counts as a
+     * render, so the rendered frames are the frames taken from the exchange.
+     */
     @Override
     protected void paintComponent(Graphics g) {
+        var start  = System.nanoTime();
+        var event  = new RenderEvent();
+        var frames = this.frames;
+        var frame  = frames == null ? null : frames.take();
+        event.begin();
+        var dirtyRows = frame == null ? 0 : draw(frame);
+
         super.paintComponent(g);
         g.drawImage(canvas, 0, 0, null);
+        if (frame == null) {
+            return;
+        }
+
+        var metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordRender(System.nanoTime() - start);
+        }
+        if (event.shouldCommit()) {
+            event.rows = Long.bitCount(dirtyRows);
+            event.commit();
+        }
     }
-}
\ No newline at end of file
+}
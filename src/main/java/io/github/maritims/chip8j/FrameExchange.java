@@ -0,0 +1,118 @@
+package io.github.maritims.chip8j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands finished frames from the emulation thread to the thread which draws them, without either waiting for the
+ * other. There are three framebuffers: the producer writes the back buffer, the consumer reads the front buffer, and
+ * the middle buffer holds the latest published frame. Publishing and taking each swap their buffer with the middle one
+ * in a single atomic operation, so a frame the consumer holds is never written to, and the consumer always gets the
+ * latest frame. Frames published while the consumer was busy are skipped.
+ * <p>
+ * Every row carries the sequence number of the last frame which changed it, so the frame a consumer takes is marked
+ * dirty in exactly the rows which changed since the previous frame it took, however many frames were skipped.
+ */
+public class FrameExchange {
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final    Framebuffer[] buffers   = new Framebuffer[3];
+    private final    long[][]      versions  = new long[3][Long.SIZE];
+    private final    long[]        sequences = new long[3];
+    private final    AtomicInteger middle    = new AtomicInteger(1);
+    private volatile long          published;
+    private volatile long          consumed;
+    private volatile long          skipped;
+
+    // Only touched by the producer.
+    private final long[] rowVersions = new long[Long.SIZE];
+    private       int    back        = 0;
+    private       long   sequence;
+
+    // Only touched by the consumer.
+    private int  front = 2;
+    private long shownSequence;
+
+    /**
+     * @param framebuffer The framebuffer frames will be published from, which the buffers are sized after.
+     */
+    public FrameExchange(Framebuffer framebuffer) {
+        for (var i = 0; i < buffers.length; i++) {
+            buffers[i] = new Framebuffer(framebuffer.getMaxColumns(), framebuffer.getMaxRows(), framebuffer.getPlanes());
+        }
+    }
+
+    /**
+     * Copies the framebuffer into the back buffer and makes it the latest frame. Called by the producer only.
+     *
+     * @return The sequence number of the frame.
+     */
+    public long publish(Framebuffer framebuffer) {
+        sequence++;
+        var dirtyRows = framebuffer.takeDirtyRows();
+        while (dirtyRows != 0) {
+            rowVersions[Long.numberOfTrailingZeros(dirtyRows)] = sequence;
+            dirtyRows &= dirtyRows - 1;
+        }
+
+        buffers[back].copyFrom(framebuffer);
+        System.arraycopy(rowVersions, 0, versions[back], 0, rowVersions.length);
+        sequences[back] = sequence;
+
+        var previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        if ((previous & FRESH) != 0) {
+            skipped++;
+        }
+        published++;
+        return sequence;
+    }
+
+    /**
+     * Takes the latest frame, if one was published since the previous call. Called by the consumer only. The frame is
+     * the consumer's until the next call, and its dirty rows are the rows which changed since the previous frame taken.
+     *
+     * @return The frame, or null if there is no new frame.
+     */
+    public Framebuffer take() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+
+        front = middle.getAndSet(front) & INDEX;
+        consumed++;
+
+        var frame     = buffers[front];
+        var dirtyRows = 0L;
+        for (var row = 0; row < frame.getRows(); row++) {
+            if (versions[front][row] > shownSequence) {
+                dirtyRows |= 1L << row;
+            }
+        }
+        frame.setDirtyRows(dirtyRows);
+        shownSequence = sequences[front];
+        return frame;
+    }
+
+    /**
+     * @return The sequence number of the frame last taken, or zero if none was.
+     */
+    public long getShownSequence() {
+        return shownSequence;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getConsumed() {
+        return consumed;
+    }
+
+    /**
+     * @return How many frames were replaced by a newer frame before the consumer took them.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,349 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.event.EventBus;
+import io.github.maritims.chip8j.jfr.FrameEvent;
+import io.github.maritims.chip8j.jfr.SchedulerOverrunEvent;
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeyEventQueue;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link CPU} from a single thread at a fixed timestep of 60 frames per second. Every frame executes a fixed
+ * number of instructions, ticks the timers exactly once and renders if the screen changed. Frames are paced against an
+ * absolute deadline, so sleep jitter does not accumulate into drift. After a stall the scheduler runs missed frames
+ * back to back to catch up, unless it fell more than {@link #MAX_CATCH_UP_FRAMES} behind, in which case the missed
+ * time is dropped.
+ * <p>
+ * Key events are queued by {@link #submit} and applied at the start of the next frame, so the keypad only changes
+ * between instructions and every event can be stamped with the instruction count. The timers are ticked by the CPU
+ * every {@code instructionsPerFrame} instructions, the same way {@link Chip8Machine} ticks them, and by the scheduler
+ * for every frame the CPU spends waiting for a key. Together with a seeded CPU, this makes a session reproducible from
+ * its {@link InputLog}.
+ * <p>
+ * Once the CPU waits for a key and both timers have run out, frames would no longer change anything, so the scheduler
+ * parks its thread until a key event or {@link #stop()} wakes it up. An idle emulator therefore uses no CPU, and a key
+ * release which ends such a wait resumes the program within microseconds. While a timer is still running, frames keep
+ * their pace, so a key release is applied at the start of the next frame like any other key event.
+ */
+public class FrameScheduler implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(FrameScheduler.class);
+
+    public static final int  FRAMES_PER_SECOND   = Chip8Machine.TIMER_FREQUENCY;
+    public static final long FRAME_NANOS         = 1_000_000_000L / FRAMES_PER_SECOND;
+    public static final int  MAX_CATCH_UP_FRAMES = 5;
+    public static final int  INPUT_CAPACITY      = 256;
+
+    private final    CPU               cpu;
+    private final    int               instructionsPerFrame;
+    private final    Runnable          onDraw;
+    private final    RewindBuffer      rewindBuffer;
+    private final    KeyEventQueue     inputs  = new KeyEventQueue(INPUT_CAPACITY);
+    private final    EmulatorMetrics   metrics = new EmulatorMetrics();
+    private volatile boolean           running;
+    private volatile boolean           rewinding;
+    private volatile Thread            thread;
+    private volatile long              submittedAt;
+    private          InputLog          inputLog;
+    private          EventBus          events;
+
+    /**
+     * @param instructionsPerSecond How fast the CPU runs, which is rounded to a whole number of instructions per frame.
+     * @param onDraw                Called on the scheduler thread after every frame which changed the screen. Whoever
+     *                              draws the frame records the render in {@link #getMetrics()}.
+     */
+    public FrameScheduler(CPU cpu, int instructionsPerSecond, Runnable onDraw) {
+        this(cpu, instructionsPerSecond, onDraw, null);
+    }
+
+    /**
+     * @param rewindBuffer Records every frame, and is stepped backwards instead of running the CPU while rewinding.
+     */
+    public FrameScheduler(CPU cpu, int instructionsPerSecond, Runnable onDraw, RewindBuffer rewindBuffer) {
+        if (instructionsPerSecond < FRAMES_PER_SECOND) {
+            throw new IllegalArgumentException("instructionsPerSecond must be at least " + FRAMES_PER_SECOND + ", but was " + instructionsPerSecond);
+        }
+
+        this.cpu                  = cpu;
+        this.instructionsPerFrame = Math.round((float) instructionsPerSecond / FRAMES_PER_SECOND);
+        this.onDraw               = onDraw;
+        this.rewindBuffer         = rewindBuffer;
+
+        cpu.setInstructionsPerFrame(instructionsPerFrame);
+    }
+
+    public int getInstructionsPerFrame() {
+        return instructionsPerFrame;
+    }
+
+    public long getDroppedFrames() {
+        return metrics.getFramesDropped();
+    }
+
+    /**
+     * @return The metrics of this scheduler. They are recorded whether or not they are registered with JMX.
+     */
+    public EmulatorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * While rewinding, every frame steps one frame back in the rewind buffer instead of running the CPU. Key events
+     * submitted meanwhile are discarded, and the keypad is left as it was in the frame rewound to.
+     */
+    public void setRewinding(boolean rewinding) {
+        this.rewinding = rewinding;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Records every key event and timer tick to {@code inputLog}, which is closed when the scheduler stops. Must be
+     * called before {@link #start()}. Rewinding would make the log disagree with the session, so it is ignored while
+     * recording.
+     */
+    public void setInputLog(InputLog inputLog) {
+        this.inputLog = inputLog;
+    }
+
+    /**
+     * Ends every frame on {@code events}, which delivers what the CPU published during the frame. Must be called before
+     * {@link #start()}.
+     */
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    /**
+     * Queues a key event. It is applied to the keypad at the start of the next frame. Events must all be submitted
+     * from the same thread, which is the EDT in the emulator.
+     *
+     * @return False if the queue is full and the event was dropped.
+     */
+    public boolean submit(KeypadKey key, boolean pressed) {
+        if (!inputs.offer(key, pressed)) {
+            return false;
+        }
+
+        submittedAt = System.nanoTime();
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("The scheduler is already running");
+        }
+
+        running = true;
+        thread  = new Thread(this, "chip8j-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the scheduler and waits for the current frame to finish.
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+
+        var current = thread;
+        if (current != null && current != Thread.currentThread()) {
+            LockSupport.unpark(current);
+            current.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Deadlines are computed from the frame count rather than accumulated, so rounding never adds up to drift.
+            var origin = System.nanoTime();
+            var frames = 0L;
+            while (running) {
+                if (isIdle()) {
+                    while (running && isIdle()) {
+                        LockSupport.park(this);
+                    }
+
+                    // The time spent parked is not owed to anyone, so pacing starts over instead of catching up.
+                    origin = System.nanoTime();
+                    frames = 0;
+                }
+
+                var start = System.nanoTime();
+                metrics.recordTimerTick(start - (origin + frames * 1_000_000_000L / FRAMES_PER_SECOND));
+
+                // Disabled events are never committed, so escape analysis removes the allocation.
+                var frameEvent = new FrameEvent();
+                frameEvent.begin();
+                var instructions = cpu.getInstructionCount();
+                runFrame();
+                frameEvent.end();
+                if (events != null) {
+                    events.endFrame(cpu.getOpcode(), cpu.getInstructionCount());
+                }
+
+                var deadline = origin + ++frames * 1_000_000_000L / FRAMES_PER_SECOND;
+                var now      = System.nanoTime();
+                var behind   = now - deadline;
+                metrics.recordFrame(cpu.getInstructionCount(), cpu.getSkippedInstructions(), now);
+                metrics.recordKeyWait(cpu.isPaused(), now);
+                if (frameEvent.shouldCommit()) {
+                    frameEvent.instructions          = (int) (cpu.getInstructionCount() - instructions);
+                    frameEvent.instructionsPerSecond = frameEvent.instructions * 1_000_000_000L / Math.max(1, now - start);
+                    frameEvent.commit();
+                }
+                if (behind > 0) {
+                    commitOverrun(behind);
+                }
+
+                if (behind > MAX_CATCH_UP_FRAMES * FRAME_NANOS) {
+                    metrics.recordDroppedFrames(behind / FRAME_NANOS);
+                    origin = now;
+                    frames = 0;
+                    continue;
+                }
+
+                while (running && now < deadline) {
+                    LockSupport.parkNanos(this, deadline - now);
+                    now = System.nanoTime();
+                }
+
+                if (frames % FRAMES_PER_SECOND == 0) {
+                    flushInputLog();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Stopping the CPU at {}", String.format("%04X", cpu.getPC()), e);
+        } finally {
+            running = false;
+            thread  = null;
+            closeInputLog();
+        }
+    }
+
+    private static void commitOverrun(long behind) {
+        var event = new SchedulerOverrunEvent();
+        if (event.shouldCommit()) {
+            event.behind        = behind;
+            event.droppedFrames = behind > MAX_CATCH_UP_FRAMES * FRAME_NANOS ? behind / FRAME_NANOS : 0;
+            event.commit();
+        }
+    }
+
+    private void flushInputLog() {
+        if (inputLog == null) {
+            return;
+        }
+
+        try {
+            inputLog.flush();
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    private void stopRecording(IOException cause) {
+        log.error("Failed to write the input log, the rest of the session is not recorded", cause);
+        try {
+            inputLog.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+        inputLog = null;
+    }
+
+    private void closeInputLog() {
+        if (inputLog == null) {
+            return;
+        }
+
+        try (var closing = inputLog) {
+            closing.end(cpu.getInstructionCount());
+        } catch (IOException e) {
+            log.error("Failed to close the input log", e);
+        }
+        inputLog = null;
+    }
+
+    /**
+     * @return Whether frames would only tick timers which are already zero until the next key event.
+     */
+    private boolean isIdle() {
+        return cpu.isPaused() && cpu.getDelayTimer() == 0 && cpu.getSoundTimer() == 0 && inputs.isEmpty() && !rewinding;
+    }
+
+    private void runFrame() {
+        if (rewinding && rewindBuffer != null && inputLog == null) {
+            // Every step back restores the keypad of its frame, so key events are dropped rather than left to fill the
+            // queue until rewinding stops.
+            inputs.clear();
+            if (rewindBuffer.stepBack()) {
+                draw();
+            }
+            return;
+        }
+
+        var wasPaused = cpu.isPaused();
+        int input;
+        while ((input = inputs.poll()) != KeyEventQueue.EMPTY) {
+            var key = KeyEventQueue.key(input);
+            if (KeyEventQueue.isPressed(input)) {
+                cpu.getKeypad().onKeyPressed(key);
+            } else {
+                cpu.getKeypad().onKeyReleased(key);
+            }
+            if (inputLog != null) {
+                record(new InputEvent(cpu.getInstructionCount(), key, KeyEventQueue.isPressed(input)));
+            }
+        }
+        if (wasPaused && !cpu.isPaused()) {
+            var now = System.nanoTime();
+            metrics.recordKeyWait(false, now);
+            metrics.recordKeyWakeLatency(now - submittedAt);
+        }
+
+        if (cpu.isPaused()) {
+            // The instruction count stands still while waiting for a key, so the frame's tick has to come from here.
+            cpu.updateTimers();
+            if (inputLog != null) {
+                record(InputEvent.timerTick(cpu.getInstructionCount()));
+            }
+        } else {
+            cpu.run(instructionsPerFrame);
+        }
+        if (rewindBuffer != null) {
+            rewindBuffer.record();
+        }
+
+        if (cpu.getDrawFlag()) {
+            cpu.setDrawFlag(false);
+            draw();
+        }
+    }
+
+    private void draw() {
+        onDraw.run();
+    }
+
+    private void record(InputEvent input) {
+        if (inputLog == null) {
+            return;
+        }
+
+        try {
+            inputLog.append(input);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package io.github.maritims.chip8j;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A framebuffer of one or more bit planes with one bit per pixel each. Every row of a plane is stored as
+ * {@code columns / 64} longs, and the leftmost pixel of a word is its most significant bit. This lets a sprite row be
+ * XORed into the buffer with one or two word operations, and lets whole rows be scrolled with array copies. The color
+ * of a pixel is the combination of its bits in every plane, see {@link #getPixel(int, int)}. Rows which change are
+ * marked as dirty until a renderer takes them.
+ * <p>
+ * The words are allocated once for the largest resolution. A lower resolution, such as the 64x32 mode of SUPER-CHIP
+ * next to its 128x64 mode, uses the top left corner of the same words.
+ */
+public class Framebuffer {
+    private final int    maxColumns;
+    private final int    maxRows;
+    private final int    planes;
+    private final int    stride;
+    private final int    planeSize;
+    private final long[] words;
+    private       int    columns;
+    private       int    rows;
+    private       int    wordsPerRow;
+    private       long   dirtyRows;
+
+    public Framebuffer(int columns, int rows) {
+        this(columns, rows, 1);
+    }
+
+    /**
+     * @param planes The number of bit planes, which is one for monochrome and two for the four colors of XO-CHIP.
+     */
+    public Framebuffer(int columns, int rows, int planes) {
+        if (columns <= 0 || columns % Long.SIZE != 0) {
+            throw new IllegalArgumentException("columns must be a positive multiple of " + Long.SIZE + ", but was " + columns);
+        }
+        if (rows <= 0 || rows > Long.SIZE) {
+            throw new IllegalArgumentException("rows must be between 1 and " + Long.SIZE + ", but was " + rows);
+        }
+        if (planes < 1 || planes > 2) {
+            throw new IllegalArgumentException("planes must be 1 or 2, but was " + planes);
+        }
+
+        this.maxColumns  = columns;
+        this.maxRows     = rows;
+        this.planes      = planes;
+        this.stride      = columns / Long.SIZE;
+        this.planeSize   = stride * rows;
+        this.words       = new long[planeSize * planes];
+        this.columns     = columns;
+        this.rows        = rows;
+        this.wordsPerRow = stride;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getMaxColumns() {
+        return maxColumns;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getPlanes() {
+        return planes;
+    }
+
+    /**
+     * Switches to another resolution and clears every plane. Nothing is allocated.
+     *
+     * @throws IllegalArgumentException If the resolution is larger than the one the framebuffer was created with, or
+     *                                  the columns are not a multiple of 64.
+     */
+    public void setResolution(int columns, int rows) {
+        if (columns <= 0 || columns > maxColumns || columns % Long.SIZE != 0) {
+            throw new IllegalArgumentException("columns must be a positive multiple of " + Long.SIZE + " up to " + maxColumns + ", but was " + columns);
+        }
+        if (rows <= 0 || rows > maxRows) {
+            throw new IllegalArgumentException("rows must be between 1 and " + maxRows + ", but was " + rows);
+        }
+
+        this.columns     = columns;
+        this.rows        = rows;
+        this.wordsPerRow = columns / Long.SIZE;
+        clear();
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * @return The pixels {@code [index * 64, index * 64 + 64)} of the row in the first plane, with the leftmost pixel
+     * as the most significant bit.
+     */
+    public long getWord(int row, int index) {
+        return words[row * stride + index];
+    }
+
+    /**
+     * Same as {@link #getWord(int, int)}, but for any plane.
+     */
+    public long getWord(int plane, int row, int index) {
+        return words[plane * planeSize + row * stride + index];
+    }
+
+    /**
+     * @return Whether the pixel is set in the first plane.
+     */
+    public boolean isSet(int x, int y) {
+        return (words[y * stride + (x >>> 6)] << (x & 63)) < 0;
+    }
+
+    /**
+     * @return The color of the pixel, with bit {@code p} set if the pixel is set in plane {@code p}.
+     */
+    public int getPixel(int x, int y) {
+        var color = 0;
+        for (var plane = 0; plane < planes; plane++) {
+            color |= (int) (words[plane * planeSize + y * stride + (x >>> 6)] << (x & 63) >>> 63) << plane;
+        }
+        return color;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+        markAllDirty();
+    }
+
+    /**
+     * Clears the planes with a bit set in {@code planeMask}.
+     */
+    public void clear(int planeMask) {
+        for (var plane = 0; plane < planes; plane++) {
+            if ((planeMask >>> plane & 1) != 0) {
+                Arrays.fill(words, plane * planeSize, (plane + 1) * planeSize, 0);
+            }
+        }
+        markAllDirty();
+    }
+
+    public void markAllDirty() {
+        dirtyRows = -1L >>> (Long.SIZE - rows);
+    }
+
+    /**
+     * @return A mask with bit {@code y} set for every row which changed since the last call.
+     */
+    public long takeDirtyRows() {
+        var dirty = dirtyRows;
+        dirtyRows = 0;
+        return dirty;
+    }
+
+    /**
+     * XORs a sprite row into the first plane.
+     *
+     * @param x      The column of the leftmost sprite pixel, which must be on screen.
+     * @param y      The row, which must be on screen.
+     * @param sprite The sprite row, with the leftmost pixel in bit {@code width - 1}.
+     * @param width  The number of pixels in the sprite row, at most 64.
+     * @param wrap   Whether pixels past the right edge wrap around to the left edge rather than being clipped.
+     * @return Whether a lit pixel was turned off.
+     */
+    public boolean xorSpriteRow(int x, int y, long sprite, int width, boolean wrap) {
+        return xorSpriteRow(0, x, y, sprite, width, wrap);
+    }
+
+    /**
+     * Same as {@link #xorSpriteRow(int, int, long, int, boolean)}, but for any plane.
+     */
+    public boolean xorSpriteRow(int plane, int x, int y, long sprite, int width, boolean wrap) {
+        var aligned = sprite << (Long.SIZE - width);
+        var word    = x >>> 6;
+        var shift   = x & 63;
+        var start   = plane * planeSize + y * stride;
+        var index   = start + word;
+
+        var first     = aligned >>> shift;
+        var collision = (words[index] & first) != 0;
+        words[index] ^= first;
+        dirtyRows    |= 1L << y;
+
+        if (shift + width > Long.SIZE) {
+            var next = word + 1;
+            if (next == wordsPerRow) {
+                if (!wrap) {
+                    return collision;
+                }
+                next = 0;
+            }
+
+            var second = aligned << (Long.SIZE - shift);
+            index       = start + next;
+            collision  |= (words[index] & second) != 0;
+            words[index] ^= second;
+        }
+
+        return collision;
+    }
+
+    /**
+     * Moves every row of the planes in {@code planeMask} down by {@code n} rows. The rows scrolled in at the top are
+     * blank.
+     */
+    public void scrollDown(int planeMask, int n) {
+        n = Math.min(n, rows);
+        for (var plane = 0; plane < planes; plane++) {
+            if ((planeMask >>> plane & 1) != 0) {
+                var start = plane * planeSize;
+                System.arraycopy(words, start, words, start + n * stride, (rows - n) * stride);
+                Arrays.fill(words, start, start + n * stride, 0);
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Moves every row of the planes in {@code planeMask} up by {@code n} rows. The rows scrolled in at the bottom are
+     * blank.
+     */
+    public void scrollUp(int planeMask, int n) {
+        n = Math.min(n, rows);
+        for (var plane = 0; plane < planes; plane++) {
+            if ((planeMask >>> plane & 1) != 0) {
+                var start = plane * planeSize;
+                System.arraycopy(words, start + n * stride, words, start, (rows - n) * stride);
+                Arrays.fill(words, start + (rows - n) * stride, start + rows * stride, 0);
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Moves every column of the planes in {@code planeMask} right by {@code n} pixels, where {@code n} is between 1 and
+     * 63. The pixels scrolled in at the left are blank.
+     */
+    public void scrollRight(int planeMask, int n) {
+        for (var plane = 0; plane < planes; plane++) {
+            if ((planeMask >>> plane & 1) == 0) {
+                continue;
+            }
+            for (var row = 0; row < rows; row++) {
+                var start = plane * planeSize + row * stride;
+                for (var index = start + wordsPerRow - 1; index > start; index--) {
+                    words[index] = words[index] >>> n | words[index - 1] << (Long.SIZE - n);
+                }
+                words[start] >>>= n;
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Moves every column of the planes in {@code planeMask} left by {@code n} pixels, where {@code n} is between 1 and
+     * 63. The pixels scrolled in at the right are blank.
+     */
+    public void scrollLeft(int planeMask, int n) {
+        for (var plane = 0; plane < planes; plane++) {
+            if ((planeMask >>> plane & 1) == 0) {
+                continue;
+            }
+            for (var row = 0; row < rows; row++) {
+                var start = plane * planeSize + row * stride;
+                var last  = start + wordsPerRow - 1;
+                for (var index = start; index < last; index++) {
+                    words[index] = words[index] << n | words[index + 1] >>> (Long.SIZE - n);
+                }
+                words[last] <<= n;
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * @return A 64-bit FNV-1a hash of the resolution and the pixels, which is stable across JVMs and runs.
+     */
+    public long contentHash() {
+        var hash = 0xCBF29CE484222325L;
+        hash = (hash ^ columns) * 0x100000001B3L;
+        hash = (hash ^ rows) * 0x100000001B3L;
+        for (var plane = 0; plane < planes; plane++) {
+            for (var row = 0; row < rows; row++) {
+                for (var index = 0; index < wordsPerRow; index++) {
+                    hash = (hash ^ words[plane * planeSize + row * stride + index]) * 0x100000001B3L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    int getSnapshotSize() {
+        return Short.BYTES * 5 + Long.BYTES * words.length;
+    }
+
+    void snapshot(ByteBuffer buffer) {
+        buffer.putShort((short) maxColumns)
+                .putShort((short) maxRows)
+                .putShort((short) planes)
+                .putShort((short) columns)
+                .putShort((short) rows);
+        for (var word : words) {
+            buffer.putLong(word);
+        }
+    }
+
+    void restore(ByteBuffer buffer) {
+        var snapshotMaxColumns = buffer.getShort();
+        var snapshotMaxRows    = buffer.getShort();
+        var snapshotPlanes     = buffer.getShort();
+        if (snapshotMaxColumns != maxColumns || snapshotMaxRows != maxRows || snapshotPlanes != planes) {
+            throw new IllegalArgumentException("The snapshot has a " + snapshotMaxColumns + "x" + snapshotMaxRows + "x" + snapshotPlanes + " framebuffer, but this one is " + maxColumns + "x" + maxRows + "x" + planes);
+        }
+
+        columns     = buffer.getShort();
+        rows        = buffer.getShort();
+        wordsPerRow = columns / Long.SIZE;
+        for (var i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Makes the resolution and pixels the same as in {@code other}, which must have the same size and planes. Nothing
+     * is allocated, and the dirty rows are left as they were.
+     */
+    public void copyFrom(Framebuffer other) {
+        if (other.maxColumns != maxColumns || other.maxRows != maxRows || other.planes != planes) {
+            throw new IllegalArgumentException("Cannot copy a " + other.maxColumns + "x" + other.maxRows + "x" + other.planes + " framebuffer into a " + maxColumns + "x" + maxRows + "x" + planes + " one");
+        }
+
+        System.arraycopy(other.words, 0, words, 0, words.length);
+        columns     = other.columns;
+        rows        = other.rows;
+        wordsPerRow = other.wordsPerRow;
+    }
+
+    void setDirtyRows(long dirtyRows) {
+        this.dirtyRows = dirtyRows;
+    }
+
+    public Framebuffer copy() {
+        var copy = new Framebuffer(maxColumns, maxRows, planes);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        copy.columns     = columns;
+        copy.rows        = rows;
+        copy.wordsPerRow = wordsPerRow;
+        copy.dirtyRows   = dirtyRows;
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Framebuffer that)) {
+            return false;
+        }
+        if (columns != that.columns || rows != that.rows || planes != that.planes) {
+            return false;
+        }
+        for (var plane = 0; plane < planes; plane++) {
+            for (var row = 0; row < rows; row++) {
+                var from     = plane * planeSize + row * stride;
+                var thatFrom = plane * that.planeSize + row * that.stride;
+                if (!Arrays.equals(words, from, from + wordsPerRow, that.words, thatFrom, thatFrom + wordsPerRow)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = 1;
+        for (var plane = 0; plane < planes; plane++) {
+            for (var row = 0; row < rows; row++) {
+                for (var index = 0; index < wordsPerRow; index++) {
+                    hash = 31 * hash + Long.hashCode(words[plane * planeSize + row * stride + index]);
+                }
+            }
+        }
+        return 31 * (31 * columns + rows) + hash;
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+
+/**
+ * An append-only log of an interactive session, which is enough to replay it headlessly with {@link Recording#replay}.
+ * The header holds the quirk profile, the seed, the instructions per frame and the SHA-256 of the ROM. Every event after it is the
+ * number of instructions since the previous event as a varint, followed by one byte: the key code for a release, the
+ * key code plus {@link #PRESS} for a press, {@link #TIMER_TICK} or {@link #END}. A session of normal play therefore
+ * costs two bytes per key event.
+ */
+public final class InputLog implements Closeable {
+    public static final int MAGIC   = 0x4338494C;
+    public static final int VERSION = 2;
+
+    static final int PRESS      = 0x10;
+    static final int TIMER_TICK = 0x20;
+    static final int END        = 0x21;
+
+    private final DataOutputStream out;
+    private       long             lastInstruction;
+
+    private InputLog(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Creates a log at {@code path}, replacing any existing file, and writes its header.
+     */
+    public static InputLog create(Path path, QuirkProfile quirks, long seed, int instructionsPerFrame, byte[] program) throws IOException {
+        var log = new InputLog(Files.newOutputStream(path));
+        log.out.writeInt(MAGIC);
+        log.out.writeShort(VERSION);
+        log.out.writeByte(quirks.ordinal());
+        log.out.writeLong(seed);
+        log.out.writeInt(instructionsPerFrame);
+        log.out.write(hash(program));
+        return log;
+    }
+
+    /**
+     * @param event An event stamped no earlier than the previous one.
+     */
+    public void append(InputEvent event) throws IOException {
+        if (event.isTimerTick()) {
+            write(event.instruction(), TIMER_TICK);
+        } else {
+            write(event.instruction(), event.key().getCosmacVipKeyCode() | (event.pressed() ? PRESS : 0));
+        }
+    }
+
+    /**
+     * Marks where the session ended, so a replay knows how many instructions to run.
+     */
+    public void end(long instruction) throws IOException {
+        write(instruction, END);
+    }
+
+    private void write(long instruction, int code) throws IOException {
+        if (instruction < lastInstruction) {
+            throw new IllegalArgumentException("Events must be appended in order, but " + instruction + " came after " + lastInstruction);
+        }
+
+        var delta = instruction - lastInstruction;
+        while ((delta & ~0x7FL) != 0) {
+            out.write((int) (delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        out.write((int) delta);
+        out.write(code);
+        lastInstruction = instruction;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Reads a log. A log which was cut short, for example because the emulator crashed, is read up to its last whole
+     * event and ends at that event.
+     */
+    public static Recording read(Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an input log");
+            }
+
+            var version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported version " + version);
+            }
+
+            var ordinal = in.readUnsignedByte();
+            if (ordinal >= QuirkProfile.values().length) {
+                throw new IOException(path + " has an unknown quirk profile " + ordinal);
+            }
+            var quirks = QuirkProfile.values()[ordinal];
+
+            var seed                 = in.readLong();
+            var instructionsPerFrame = in.readInt();
+            var programHash          = in.readNBytes(32);
+            if (programHash.length != 32) {
+                throw new EOFException(path + " is truncated");
+            }
+
+            var events      = new ArrayList<InputEvent>();
+            var instruction = 0L;
+            while (true) {
+                var delta = readVarint(in);
+                var code  = delta < 0 ? -1 : in.read();
+                if (code < 0 || code == END) {
+                    return new Recording(quirks, seed, instructionsPerFrame, programHash, events, code == END ? instruction + delta : instruction);
+                }
+
+                instruction += delta;
+                if (code == TIMER_TICK) {
+                    events.add(InputEvent.timerTick(instruction));
+                } else {
+                    var key = KeypadKey.fromCosmacVipKeyCode(code & 0xF)
+                            .filter(k -> (code & ~(PRESS | 0xF)) == 0)
+                            .orElseThrow(() -> new IOException(path + " has an unknown event " + code));
+                    events.add(new InputEvent(instruction, key, (code & PRESS) != 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The varint, or -1 at the end of the stream.
+     */
+    private static long readVarint(InputStream in) throws IOException {
+        var value = 0L;
+        for (var shift = 0; shift < 64; shift += 7) {
+            var b = in.read();
+            if (b < 0) {
+                return -1;
+            }
+
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static byte[] hash(byte[] program) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(program);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
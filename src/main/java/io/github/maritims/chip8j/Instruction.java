@@ -0,0 +1,207 @@
+package io.github.maritims.chip8j;
+
+/**
+ * A decoded instruction is packed into one int: the handler id in the upper 16 bits and the raw opcode in the lower
+ * 16 bits. The operands are cheap shifts and masks of the opcode. Handler ids are dense so that a switch over them
+ * compiles into a jump table. Zero is never a valid decoded instruction, which lets caches use it as "not decoded".
+ * <p>
+ * The only instruction longer than 16 bits is the XO-CHIP {@code F000 nnnn}, whose handler reads its second word from
+ * memory itself.
+ */
+public final class Instruction {
+    public static final int OP_NULL = 1;
+    public static final int OP_00E0 = 2;
+    public static final int OP_00EE = 3;
+    public static final int OP_1nnn = 4;
+    public static final int OP_2nnn = 5;
+    public static final int OP_3xnn = 6;
+    public static final int OP_4xnn = 7;
+    public static final int OP_5xy0 = 8;
+    public static final int OP_6xnn = 9;
+    public static final int OP_7xnn = 10;
+    public static final int OP_8xy0 = 11;
+    public static final int OP_8xy1 = 12;
+    public static final int OP_8xy2 = 13;
+    public static final int OP_8xy3 = 14;
+    public static final int OP_8xy4 = 15;
+    public static final int OP_8xy5 = 16;
+    public static final int OP_8xy6 = 17;
+    public static final int OP_8xy7 = 18;
+    public static final int OP_8xyE = 19;
+    public static final int OP_9xy0 = 20;
+    public static final int OP_Annn = 21;
+    public static final int OP_Bnnn = 22;
+    public static final int OP_Cxnn = 23;
+    public static final int OP_Dxyn = 24;
+    public static final int OP_Ex9E = 25;
+    public static final int OP_ExA1 = 26;
+    public static final int OP_Fx07 = 27;
+    public static final int OP_Fx0A = 28;
+    public static final int OP_Fx15 = 29;
+    public static final int OP_Fx18 = 30;
+    public static final int OP_Fx1E = 31;
+    public static final int OP_Fx29 = 32;
+    public static final int OP_Fx33 = 33;
+    public static final int OP_Fx55 = 34;
+    public static final int OP_Fx65 = 35;
+
+    // Variants of the handlers above for the quirks of a QuirkProfile.
+    public static final int OP_8xy1_resetVF       = 36;
+    public static final int OP_8xy2_resetVF       = 37;
+    public static final int OP_8xy3_resetVF       = 38;
+    public static final int OP_8xy6_shiftVy       = 39;
+    public static final int OP_8xyE_shiftVy       = 40;
+    public static final int OP_Fx55_incrementI    = 41;
+    public static final int OP_Fx65_incrementI    = 42;
+    public static final int OP_Fx55_incrementIByX = 43;
+    public static final int OP_Fx65_incrementIByX = 44;
+    public static final int OP_Bxnn               = 45;
+
+    // SUPER-CHIP extensions, which a QuirkProfile without them decodes as above.
+    public static final int OP_00Cn = 46;
+    public static final int OP_00FB = 47;
+    public static final int OP_00FC = 48;
+    public static final int OP_00FD = 49;
+    public static final int OP_00FE = 50;
+    public static final int OP_00FF = 51;
+    public static final int OP_Dxy0 = 52;
+    public static final int OP_Fx30 = 53;
+    public static final int OP_Fx75 = 54;
+    public static final int OP_Fx85 = 55;
+
+    // XO-CHIP extensions, which a QuirkProfile without them decodes as no-ops.
+    public static final int OP_00Dn = 56;
+    public static final int OP_5xy2 = 57;
+    public static final int OP_5xy3 = 58;
+    public static final int OP_F000 = 59;
+    public static final int OP_Fn01 = 60;
+    public static final int OP_F002 = 61;
+    public static final int OP_Fx3A = 62;
+
+    // XO-CHIP variants of the handlers above, which draw to the selected planes or skip over F000 nnnn as a whole.
+    public static final int OP_00E0_planes = 63;
+    public static final int OP_Dxyn_planes = 64;
+    public static final int OP_Dxy0_planes = 65;
+    public static final int OP_3xnn_long   = 66;
+    public static final int OP_4xnn_long   = 67;
+    public static final int OP_5xy0_long   = 68;
+    public static final int OP_9xy0_long   = 69;
+    public static final int OP_Ex9E_long   = 70;
+    public static final int OP_ExA1_long   = 71;
+
+    static final int HANDLERS = 72;
+
+    private Instruction() {
+    }
+
+    public static int decode(int opcode) {
+        return handlerOf(opcode) << 16 | opcode;
+    }
+
+    /**
+     * Decodes the opcode into the handler variant which implements the quirks of {@code quirks}.
+     */
+    public static int decode(int opcode, QuirkProfile quirks) {
+        return quirks.specialize(handlerOf(opcode)) << 16 | opcode;
+    }
+
+    public static int handler(int instruction) {
+        return instruction >>> 16;
+    }
+
+    public static int opcode(int instruction) {
+        return instruction & 0xFFFF;
+    }
+
+    public static int x(int instruction) {
+        return (instruction & 0x0F00) >>> 8;
+    }
+
+    public static int y(int instruction) {
+        return (instruction & 0x00F0) >>> 4;
+    }
+
+    public static int n(int instruction) {
+        return instruction & 0x000F;
+    }
+
+    public static int nn(int instruction) {
+        return instruction & 0x00FF;
+    }
+
+    public static int nnn(int instruction) {
+        return instruction & 0x0FFF;
+    }
+
+    private static int handlerOf(int opcode) {
+        return switch (opcode >>> 12) {
+            case 0x0 -> switch (opcode) {
+                case 0x00E0 -> OP_00E0;
+                case 0x00EE -> OP_00EE;
+                case 0x00FB -> OP_00FB;
+                case 0x00FC -> OP_00FC;
+                case 0x00FD -> OP_00FD;
+                case 0x00FE -> OP_00FE;
+                case 0x00FF -> OP_00FF;
+                default -> switch (opcode & 0xFFF0) {
+                    case 0x00C0 -> OP_00Cn;
+                    case 0x00D0 -> OP_00Dn;
+                    default -> OP_NULL;
+                };
+            };
+            case 0x1 -> OP_1nnn;
+            case 0x2 -> OP_2nnn;
+            case 0x3 -> OP_3xnn;
+            case 0x4 -> OP_4xnn;
+            case 0x5 -> switch (opcode & 0xF) {
+                case 0x0 -> OP_5xy0;
+                case 0x2 -> OP_5xy2;
+                case 0x3 -> OP_5xy3;
+                default -> OP_NULL;
+            };
+            case 0x6 -> OP_6xnn;
+            case 0x7 -> OP_7xnn;
+            case 0x8 -> switch (opcode & 0xF) {
+                case 0x0 -> OP_8xy0;
+                case 0x1 -> OP_8xy1;
+                case 0x2 -> OP_8xy2;
+                case 0x3 -> OP_8xy3;
+                case 0x4 -> OP_8xy4;
+                case 0x5 -> OP_8xy5;
+                case 0x6 -> OP_8xy6;
+                case 0x7 -> OP_8xy7;
+                case 0xE -> OP_8xyE;
+                default -> OP_NULL;
+            };
+            case 0x9 -> (opcode & 0xF) == 0x0 ? OP_9xy0 : OP_NULL;
+            case 0xA -> OP_Annn;
+            case 0xB -> OP_Bnnn;
+            case 0xC -> OP_Cxnn;
+            case 0xD -> (opcode & 0xF) == 0x0 ? OP_Dxy0 : OP_Dxyn;
+            case 0xE -> switch (opcode & 0xFF) {
+                case 0x9E -> OP_Ex9E;
+                case 0xA1 -> OP_ExA1;
+                default -> OP_NULL;
+            };
+            default -> switch (opcode & 0xFF) {
+                case 0x00 -> opcode == 0xF000 ? OP_F000 : OP_NULL;
+                case 0x01 -> OP_Fn01;
+                case 0x02 -> opcode == 0xF002 ? OP_F002 : OP_NULL;
+                case 0x07 -> OP_Fx07;
+                case 0x0A -> OP_Fx0A;
+                case 0x15 -> OP_Fx15;
+                case 0x18 -> OP_Fx18;
+                case 0x1E -> OP_Fx1E;
+                case 0x29 -> OP_Fx29;
+                case 0x30 -> OP_Fx30;
+                case 0x33 -> OP_Fx33;
+                case 0x3A -> OP_Fx3A;
+                case 0x55 -> OP_Fx55;
+                case 0x65 -> OP_Fx65;
+                case 0x75 -> OP_Fx75;
+                case 0x85 -> OP_Fx85;
+                default -> OP_NULL;
+            };
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.maritims.chip8j;
+
+public record MachineState(
+        Framebuffer framebuffer,
+        int[] V,
+        int I,
+        int PC,
+        int delayTimer,
+        int soundTimer,
+        long instructionCount,
+        long skippedInstructions,
+        boolean isPaused
+) {
+    static MachineState of(CPU cpu) {
+        var V = new int[16];
+        for (var x = 0; x < V.length; x++) {
+            V[x] = cpu.getV(x);
+        }
+
+        return new MachineState(
+                cpu.getFramebuffer().copy(),
+                V,
+                cpu.getI(),
+                cpu.getPC(),
+                cpu.getDelayTimer(),
+                cpu.getSoundTimer(),
+                cpu.getInstructionCount(),
+                cpu.getSkippedInstructions(),
+                cpu.isPaused()
+        );
+    }
+}
@@ -1,7 +1,14 @@
 package io.github.maritims.chip8j;
 
+import io.github.maritims.chip8j.analysis.AnalysisCache;
+import io.github.maritims.chip8j.event.EventBus;
+import io.github.maritims.chip8j.jfr.RomLoadEvent;
 import io.github.maritims.chip8j.keypad.HostKey;
 import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import io.github.maritims.chip8j.library.RomEntry;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
+import io.github.maritims.chip8j.library.RomLibrary;
 import io.github.maritims.chip8j.swing.StatusPanel;
 import io.github.maritims.chip8j.swing.menu.MenuBar;
 import io.github.maritims.chip8j.swing.menu.*;
@@ -13,26 +20,51 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class Platform extends JFrame implements KeyListener {
     private static final Logger log = LoggerFactory.getLogger(Platform.class);
 
-    private final Display                  display;
-    private final Keypad                   keypad;
-    private final AtomicReference<byte[]>  program;
-    private final StatusPanel              statusPanel;
-    private final JLabel                   fpsLabel;
-    private       SwingWorker<Void, Void>  timerRegisterWorker;
-    private       SwingWorker<Void, int[]> cpuWorker;
+    public static final int  DEFAULT_INSTRUCTIONS_PER_SECOND = 700;
+    public static final int  REWIND_KEYFRAME_INTERVAL        = FrameScheduler.FRAMES_PER_SECOND;
+    public static final long REWIND_MAX_BYTES                = 16L * 1024 * 1024;
+    public static final int  TRACE_RECORDS                   = 1 << 20;
+
+    private final Display                 display;
+    private final Keypad                  keypad;
+    private final AtomicReference<byte[]> program;
+    private final StatusPanel             statusPanel;
+    private final AnalysisCache           analysisCache;
+    private final RomLibrary              library;
+    private final JLabel                  fpsLabel;
+    private final int                     instructionsPerSecond;
+    private       FrameScheduler          scheduler;
+    private       FrameExchange           frames;
+    private       TraceWriter             trace;
+    private       EventBus                events;
+    private       int                     shownFps = -1;
+    private       RomEntry                rom;
 
     public Platform() {
-        display     = new Display(64, 32, 10);
+        this(Integer.getInteger("chip8j.ips", DEFAULT_INSTRUCTIONS_PER_SECOND));
+    }
+
+    public Platform(int instructionsPerSecond) {
+        this.instructionsPerSecond = instructionsPerSecond;
+
+        display     = new Display(128, 64, 5);
         keypad      = new Keypad();
         program     = new AtomicReference<>();
         statusPanel = new StatusPanel();
 
+        var analysisDirectory = System.getProperty("chip8j.analysisCache");
+        analysisCache = new AnalysisCache(analysisDirectory == null ? AnalysisCache.defaultDirectory() : Path.of(analysisDirectory));
+        library       = new RomLibrary(
+                Path.of(System.getProperty("chip8j.roms", System.getProperty("user.dir"))),
+                Path.of(System.getProperty("chip8j.romIndex", Path.of(System.getProperty("user.home"), ".chip8j", "roms.tsv").toString())));
+        openLibrary();
+
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
         setTitle("CHIP-8");
@@ -42,15 +74,22 @@ public class Platform extends JFrame implements KeyListener {
 
         var togglePower = new TogglePowerItem(
                 "Power on",
-                () -> (timerRegisterWorker == null || timerRegisterWorker.isCancelled() || timerRegisterWorker.isDone()) && (cpuWorker == null || cpuWorker.isCancelled() || cpuWorker.isDone()),
+                () -> scheduler == null || !scheduler.isRunning(),
                 this::powerOn,
-                () -> {
-                    timerRegisterWorker.cancel(true);
-                    cpuWorker.cancel(true);
-                });
-        var loadRom = new LoadRomItem("Load ROM", (path) -> {
+                this::powerOff);
+        var loadRom = new LoadRomItem("Load ROM", library.getRoot(), (path) -> {
             try {
-                program.set(Files.readAllBytes(path));
+                var event = new RomLoadEvent();
+                event.begin();
+                rom = library.getEntry(path);
+                program.set(library.read(rom));
+                if (event.shouldCommit()) {
+                    event.path = path.toString();
+                    event.size = program.get().length;
+                    event.commit();
+                }
+                log.info("Loaded {}, a {} ROM of {} bytes", rom.name(), rom.variant(), rom.size());
+                analyze(path, program.get());
                 togglePower.setEnabled(true);
             } catch (IOException e) {
                 throw new RuntimeException(e);
@@ -68,65 +107,94 @@ public class Platform extends JFrame implements KeyListener {
         southContainer.add(fpsLabel);
 
         add(display, BorderLayout.CENTER);
-        //add(southContainer, BorderLayout.SOUTH);
+        add(southContainer, BorderLayout.SOUTH);
         pack();
         setVisible(true);
     }
 
+    /**
+     * Starts the loaded ROM with the quirk profile named by {@code -Dchip8j.quirks}, or else the one detected for the
+     * ROM by the library. The seed can be fixed with {@code -Dchip8j.seed}, and {@code -Dchip8j.record=path} records
+     * the session to an {@link InputLog} which can be replayed headlessly. Loops waiting for the delay timer end the
+     * frame early, leaving the scheduler asleep until the next tick, unless {@code -Dchip8j.skipIdleLoops=false}.
+     * {@code -Dchip8j.trace=path} traces the last {@code -Dchip8j.traceRecords} instructions, a million by default, to
+     * a {@link TraceWriter} file.
+     */
     void powerOn() {
-        var cpu = new CPU(64, 32, keypad).loadProgram(program.get());
-        cpu.registerObservers(statusPanel);
-
-        timerRegisterWorker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                while (!isCancelled()) {
-                    cpu.updateTimers();
-                    Thread.sleep(1000 / 60);
-                }
-                return null;
-            }
+        var seed   = Long.getLong("chip8j.seed", System.nanoTime());
+        var quirks = quirks();
+        var cpu    = new CPU(64, 32, keypad, seed, quirks)
+                .loadProgram(program.get())
+                .setSkipIdleLoops(Boolean.parseBoolean(System.getProperty("chip8j.skipIdleLoops", "true")));
+        log.info("Powering on with {} quirks and seed {}", quirks, seed);
 
-            @Override
-            protected void done() {
-                timerRegisterWorker = null;
-            }
-        };
-
-        cpuWorker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                var cycleDelay    = 10;
-                var lastCycleTime = System.nanoTime();
-
-                while (!isCancelled()) {
-                    var currentTime = System.nanoTime();
-                    var delayTime   = currentTime - lastCycleTime;
-
-                    if (delayTime > cycleDelay) {
-                        cpu.cycle();
-                        if (cpu.getDrawFlag()) {
-                            display.render(cpu.getPixels());
-                            cpu.setDrawFlag(false);
-                            fpsLabel.setText("FPS: " + 0);
-                        }
-                    }
-
-                    Thread.sleep(1L);
-                }
-                return null;
+        var traceTo = System.getProperty("chip8j.trace");
+        if (traceTo != null) {
+            try {
+                trace = TraceWriter.create(Path.of(traceTo), Integer.getInteger("chip8j.traceRecords", TRACE_RECORDS));
+                cpu.setTraceWriter(trace);
+                log.info("Tracing the last {} instructions to {}", trace.getCapacity(), traceTo);
+            } catch (IOException e) {
+                log.error("Failed to create the trace {}", traceTo, e);
             }
+        }
+
+        // The CPU and the scheduler only publish events, which the status panel gets on the event dispatch thread.
+        events = new EventBus();
+        events.addFrameListener(statusPanel);
+        cpu.setEventBus(events);
+
+        // The scheduler only publishes frames, which the display takes and draws on the event dispatch thread.
+        var rewindBuffer = new RewindBuffer(cpu, REWIND_KEYFRAME_INTERVAL, REWIND_MAX_BYTES);
+        var frames       = new FrameExchange(cpu.getFramebuffer());
+        scheduler = new FrameScheduler(cpu, instructionsPerSecond, () -> {
+            frames.publish(cpu.getFramebuffer());
+            display.repaint();
+        }, rewindBuffer);
+        this.frames = frames;
+
+        // Frames are drawn on the event dispatch thread, so the display records the renders.
+        var metrics = scheduler.getMetrics();
+        display.show(frames, metrics);
 
-            @Override
-            protected void done() {
-                display.clear();
-                keypad.onNextKeyReleased(null);
-                cpuWorker = null;
+        // Swing may only be touched on the event dispatch thread, so the frame rate is shown from the bus.
+        events.addFrameListener(snapshot -> showFps(metrics));
+        scheduler.setEventBus(events);
+        metrics.register();
+
+        var recordTo = System.getProperty("chip8j.record");
+        if (recordTo != null) {
+            try {
+                scheduler.setInputLog(InputLog.create(Path.of(recordTo), quirks, seed, scheduler.getInstructionsPerFrame(), program.get()));
+                log.info("Recording the session to {}", recordTo);
+            } catch (IOException e) {
+                log.error("Failed to create the input log {}", recordTo, e);
             }
-        };
+        }
+        events.start();
+        scheduler.start();
+    }
 
-        timerRegisterWorker.execute();
-        cpuWorker.execute();
+    void powerOff() {
+        try {
+            scheduler.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        events.close();
+        scheduler.getMetrics().close();
+        if (trace != null) {
+            trace.close();
+            trace = null;
+        }
+
+        display.show(null, null);
+        display.clear();
+        keypad.onNextKeyReleased(null);
+        log.info("Published {} frames, of which {} were shown and {} skipped", frames.getPublished(), frames.getConsumed(), frames.getSkipped());
+        if (events.getDropped() > 0) {
+            log.warn("Dropped {} of {} events because the listeners fell behind", events.getDropped(), events.getPublished() + events.getDropped());
+        }
     }
 
     @Override
@@ -135,15 +203,91 @@ public class Platform extends JFrame implements KeyListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            setRewinding(true);
+            return;
+        }
+
         HostKey.fromAsciiCode(e.getKeyChar())
                 .map(HostKey::getKeypadKey)
-                .ifPresent(keypad::onKeyPressed);
+                .ifPresent(key -> submit(key, true));
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            setRewinding(false);
+            return;
+        }
+
         HostKey.fromAsciiCode(e.getKeyChar())
                 .map(HostKey::getKeypadKey)
-                .ifPresent(keypad::onKeyReleased);
+                .ifPresent(key -> submit(key, false));
+    }
+
+    /**
+     * @return The profile named by {@code -Dchip8j.quirks}, or else the one the library detected for the loaded ROM.
+     */
+    private QuirkProfile quirks() {
+        var name = System.getProperty("chip8j.quirks");
+        if (name != null) {
+            return QuirkProfile.valueOf(name.toUpperCase());
+        }
+        return rom == null ? QuirkProfile.MODERN : rom.quirks();
+    }
+
+    /**
+     * Indexes the ROM library in the background, since a large library takes a while the first time, and then keeps
+     * the index current. The library is in {@code -Dchip8j.roms}, the working directory by default, and its index in
+     * {@code -Dchip8j.romIndex}.
+     */
+    private void openLibrary() {
+        var thread = new Thread(() -> {
+            try {
+                library.open().watch();
+            } catch (IOException e) {
+                log.error("Failed to index the ROM library {}", library.getRoot(), e);
+            }
+        }, "chip8j-rom-library-scan");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Analyzes the ROM with the {@link AnalysisCache} in {@code -Dchip8j.analysisCache}, {@code ~/.chip8j/analysis} by
+     * default, so only the first load of a ROM pays for it.
+     */
+    private void analyze(Path path, byte[] rom) {
+        try {
+            var analysis = analysisCache.get(rom, quirks());
+            log.info("{} has {} basic blocks, {} subroutines, {} bytes of data and {} writes which may modify code",
+                    path.getFileName(),
+                    analysis.blocks().size(),
+                    analysis.subroutines().size(),
+                    analysis.dataBytes(),
+                    analysis.selfModifyingWrites().size());
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Failed to analyze {}", path, e);
+        }
+    }
+
+    private void showFps(EmulatorMetrics metrics) {
+        var fps = (int) Math.round(metrics.getFramesPerSecond());
+        if (fps != shownFps) {
+            shownFps = fps;
+            fpsLabel.setText("FPS: " + fps);
+        }
+    }
+
+    private void submit(KeypadKey key, boolean pressed) {
+        if (scheduler != null && scheduler.isRunning() && !scheduler.submit(key, pressed)) {
+            log.warn("Dropped {} {}, the CPU is not keeping up with the keyboard", key, pressed ? "press" : "release");
+        }
+    }
+
+    private void setRewinding(boolean rewinding) {
+        if (scheduler != null) {
+            scheduler.setRewinding(rewinding);
+        }
     }
 }
\ No newline at end of file
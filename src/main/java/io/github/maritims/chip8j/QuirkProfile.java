@@ -0,0 +1,169 @@
+package io.github.maritims.chip8j;
+
+import static io.github.maritims.chip8j.Instruction.*;
+
+/**
+ * The behaviours which differ between CHIP-8 implementations. A profile is resolved when an instruction is decoded, by
+ * mapping the handler of every affected instruction to a variant which has the quirk built in. The CPU therefore never
+ * checks a quirk while executing. Profiles without the SUPER-CHIP or XO-CHIP extensions decode their instructions as
+ * the CHIP-8 instructions they overlap with.
+ */
+public enum QuirkProfile {
+    /**
+     * The original interpreter: logic ops reset VF, shifts read Vy, Fx55 and Fx65 leave I past the last register and
+     * Bnnn jumps relative to V0.
+     */
+    COSMAC_VIP(true, true, IndexIncrement.X_PLUS_ONE, false, false, false),
+    /**
+     * The HP48 interpreter: shifts work in place, Fx55 and Fx65 leave I on the last register and Bxnn jumps relative
+     * to Vx.
+     */
+    CHIP_48(false, false, IndexIncrement.X, true, false, false),
+    /**
+     * SUPER-CHIP 1.1: like CHIP-48, except that Fx55 and Fx65 leave I unchanged, and with the 128x64 mode, scrolling,
+     * 16x16 sprites, the large font and the RPL flags.
+     */
+    SUPER_CHIP(false, false, IndexIncrement.NONE, true, true, false),
+    /**
+     * What most interpreters written today do for CHIP-8 ROMs, and the quirks this one has always had. The SUPER-CHIP
+     * and XO-CHIP instructions are left to {@link #SUPER_CHIP} and {@link #XO_CHIP}.
+     */
+    MODERN(false, false, IndexIncrement.NONE, false, false, false),
+    /**
+     * XO-CHIP as implemented by Octo: the SUPER-CHIP extensions plus 64 KB of memory, two bit planes, an audio pattern
+     * buffer and register ranges. Shifts read Vy, Fx55 and Fx65 leave I past the last register and sprites wrap around
+     * the edges instead of being clipped.
+     */
+    XO_CHIP(false, true, IndexIncrement.X_PLUS_ONE, false, true, true);
+
+    /**
+     * How far Fx55 and Fx65 move I.
+     */
+    public enum IndexIncrement {
+        NONE,
+        X,
+        X_PLUS_ONE
+    }
+
+    private final boolean        resetsVF;
+    private final boolean        shiftsVy;
+    private final IndexIncrement indexIncrement;
+    private final boolean        jumpsWithVx;
+    private final boolean        superChip;
+    private final boolean        xoChip;
+    private final int[]          handlers;
+
+    QuirkProfile(boolean resetsVF, boolean shiftsVy, IndexIncrement indexIncrement, boolean jumpsWithVx, boolean superChip, boolean xoChip) {
+        this.resetsVF       = resetsVF;
+        this.shiftsVy       = shiftsVy;
+        this.indexIncrement = indexIncrement;
+        this.jumpsWithVx    = jumpsWithVx;
+        this.superChip      = superChip;
+        this.xoChip         = xoChip;
+
+        handlers = new int[HANDLERS];
+        for (var handler = 0; handler < handlers.length; handler++) {
+            handlers[handler] = handler;
+        }
+        if (resetsVF) {
+            handlers[OP_8xy1] = OP_8xy1_resetVF;
+            handlers[OP_8xy2] = OP_8xy2_resetVF;
+            handlers[OP_8xy3] = OP_8xy3_resetVF;
+        }
+        if (shiftsVy) {
+            handlers[OP_8xy6] = OP_8xy6_shiftVy;
+            handlers[OP_8xyE] = OP_8xyE_shiftVy;
+        }
+        switch (indexIncrement) {
+            case X -> {
+                handlers[OP_Fx55] = OP_Fx55_incrementIByX;
+                handlers[OP_Fx65] = OP_Fx65_incrementIByX;
+            }
+            case X_PLUS_ONE -> {
+                handlers[OP_Fx55] = OP_Fx55_incrementI;
+                handlers[OP_Fx65] = OP_Fx65_incrementI;
+            }
+        }
+        if (jumpsWithVx) {
+            handlers[OP_Bnnn] = OP_Bxnn;
+        }
+        if (!superChip) {
+            handlers[OP_00Cn] = OP_NULL;
+            handlers[OP_00FB] = OP_NULL;
+            handlers[OP_00FC] = OP_NULL;
+            handlers[OP_00FD] = OP_NULL;
+            handlers[OP_00FE] = OP_NULL;
+            handlers[OP_00FF] = OP_NULL;
+            handlers[OP_Dxy0] = OP_Dxyn;
+            handlers[OP_Fx30] = OP_NULL;
+            handlers[OP_Fx75] = OP_NULL;
+            handlers[OP_Fx85] = OP_NULL;
+        }
+        if (xoChip) {
+            handlers[OP_00E0] = OP_00E0_planes;
+            handlers[OP_Dxyn] = OP_Dxyn_planes;
+            handlers[OP_Dxy0] = OP_Dxy0_planes;
+            handlers[OP_3xnn] = OP_3xnn_long;
+            handlers[OP_4xnn] = OP_4xnn_long;
+            handlers[OP_5xy0] = OP_5xy0_long;
+            handlers[OP_9xy0] = OP_9xy0_long;
+            handlers[OP_Ex9E] = OP_Ex9E_long;
+            handlers[OP_ExA1] = OP_ExA1_long;
+        } else {
+            handlers[OP_00Dn] = OP_NULL;
+            handlers[OP_5xy2] = OP_NULL;
+            handlers[OP_5xy3] = OP_NULL;
+            handlers[OP_F000] = OP_NULL;
+            handlers[OP_Fn01] = OP_NULL;
+            handlers[OP_F002] = OP_NULL;
+            handlers[OP_Fx3A] = OP_NULL;
+        }
+    }
+
+    /**
+     * Logic ops {@code 8xy1}, {@code 8xy2} and {@code 8xy3} set VF to zero.
+     */
+    public boolean resetsVF() {
+        return resetsVF;
+    }
+
+    /**
+     * Shifts {@code 8xy6} and {@code 8xyE} shift Vy into Vx instead of shifting Vx in place.
+     */
+    public boolean shiftsVy() {
+        return shiftsVy;
+    }
+
+    public IndexIncrement getIndexIncrement() {
+        return indexIncrement;
+    }
+
+    /**
+     * {@code Bnnn} jumps to {@code xnn + Vx} instead of {@code nnn + V0}.
+     */
+    public boolean jumpsWithVx() {
+        return jumpsWithVx;
+    }
+
+    /**
+     * The SUPER-CHIP instructions are supported, and the framebuffer has room for its 128x64 mode.
+     */
+    public boolean supportsSuperChip() {
+        return superChip;
+    }
+
+    /**
+     * The XO-CHIP instructions are supported, memory is 64 KB and the framebuffer has two planes. Sprites wrap around
+     * the edges of the screen.
+     */
+    public boolean supportsXoChip() {
+        return xoChip;
+    }
+
+    /**
+     * @return The variant of {@code handler} which behaves according to this profile.
+     */
+    int specialize(int handler) {
+        return handlers[handler];
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * A session read back from an {@link InputLog}.
+ *
+ * @param quirks       The quirk profile the session ran with.
+ * @param programHash  The SHA-256 of the ROM the session was recorded with.
+ * @param events       The key events and timer ticks, ordered by instruction.
+ * @param instructions How many instructions the session executed.
+ */
+public record Recording(
+        QuirkProfile quirks,
+        long seed,
+        int instructionsPerFrame,
+        byte[] programHash,
+        List<InputEvent> events,
+        long instructions
+) {
+    public boolean matches(byte[] program) {
+        return MessageDigest.isEqual(programHash, InputLog.hash(program));
+    }
+
+    /**
+     * Runs the session headlessly, as fast as the host allows, and returns the state it ended in.
+     *
+     * @throws IllegalArgumentException If the session was recorded with a different ROM.
+     */
+    public MachineState replay(byte[] program) {
+        if (!matches(program)) {
+            throw new IllegalArgumentException("The session was recorded with a different ROM");
+        }
+        return new Chip8Machine(instructionsPerFrame, false, false, quirks).run(program, instructions, seed, events);
+    }
+}
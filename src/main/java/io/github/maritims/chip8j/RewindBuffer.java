@@ -0,0 +1,346 @@
+package io.github.maritims.chip8j;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records the state of a {@link CPU} every frame so it can be stepped backwards. Every {@code keyframeInterval} frames a
+ * full snapshot is stored. The frames in between only store how their snapshot differs from the previous keyframe:
+ * the snapshot is split into pages of {@link #PAGE_SIZE} bytes, unchanged pages are skipped, and changed pages are
+ * XORed with the keyframe and run-length encoded. Since most of a snapshot is memory and framebuffer rows which rarely
+ * change, a typical frame costs a few dozen bytes.
+ * <p>
+ * Once the history exceeds its cap, the oldest keyframe is dropped together with its deltas. The keyframe the newest
+ * frame is encoded against is never dropped. If its deltas alone would exceed the cap, the next frame becomes a keyframe
+ * instead. Frames are stored back to back in one ring of bytes, which only grows until it fits the history, so
+ * recording allocates nothing once the history is full.
+ */
+public class RewindBuffer {
+    public static final int PAGE_SIZE = 256;
+
+    // Bookkeeping per frame, on top of its data.
+    private static final int FRAME_OVERHEAD = 32;
+    private static final int INITIAL_FRAMES = 64;
+
+    private final CPU        cpu;
+    private final int        keyframeInterval;
+    private final long       maxBytes;
+    private final byte[]     current;
+    private final byte[]     delta;
+    private final byte[]     keyframe;
+    private final ByteBuffer currentBuffer;
+    private       byte[]     data;
+    private       long       head;
+    private       long       tail;
+    private       long[]     starts    = new long[INITIAL_FRAMES];
+    private       int[]      lengths   = new int[INITIAL_FRAMES];
+    private       boolean[]  keyframes = new boolean[INITIAL_FRAMES];
+    private       int        oldest;
+    private       int        frames;
+    private       boolean    hasKeyframe;
+    private       int        framesSinceKeyframe;
+    private       long       groupBytes;
+    private       long       bytes;
+
+    /**
+     * @param keyframeInterval How many frames there are between two full snapshots.
+     * @param maxBytes         The most memory the history may take. The oldest frames are dropped to stay below it, but
+     *                         the newest frame is always kept.
+     */
+    public RewindBuffer(CPU cpu, int keyframeInterval, long maxBytes) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("keyframeInterval must be positive, but was " + keyframeInterval);
+        }
+
+        this.cpu              = cpu;
+        this.keyframeInterval = keyframeInterval;
+        this.maxBytes         = maxBytes;
+        this.current          = new byte[cpu.getSnapshotSize()];
+        this.keyframe         = new byte[current.length];
+        this.currentBuffer    = ByteBuffer.wrap(current);
+        this.data             = new byte[current.length * 4];
+
+        // The worst case is a page mask followed by every byte changing on its own, with two length prefixes each.
+        this.delta = new byte[maskBytes(current.length) + current.length * 3];
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Records the current state of the CPU as the newest frame.
+     */
+    public void record() {
+        currentBuffer.clear();
+        cpu.snapshot(currentBuffer);
+
+        var isKeyframe = !hasKeyframe || framesSinceKeyframe + 1 >= keyframeInterval;
+        var length     = current.length;
+        if (!isKeyframe) {
+            length     = encode(keyframe, current, delta);
+            isKeyframe = groupBytes + length + FRAME_OVERHEAD > maxBytes;
+            length     = isKeyframe ? current.length : length;
+        }
+
+        // A keyframe depends on nothing, so every older frame may go to make room for it.
+        while (frames > 0 && bytes + length + FRAME_OVERHEAD > maxBytes && (isKeyframe || groupBytes < bytes)) {
+            dropOldestKeyframe();
+        }
+
+        if (isKeyframe) {
+            System.arraycopy(current, 0, keyframe, 0, current.length);
+            hasKeyframe         = true;
+            framesSinceKeyframe = 0;
+            groupBytes          = 0;
+            append(current, length, true);
+        } else {
+            framesSinceKeyframe++;
+            append(delta, length, false);
+        }
+    }
+
+    /**
+     * Drops the newest frame and restores the CPU to the one before it.
+     *
+     * @return False if there is no earlier frame to go back to.
+     */
+    public boolean stepBack() {
+        if (frames < 2) {
+            return false;
+        }
+
+        dropNewest();
+
+        // The oldest frame is always a keyframe, so there is one to find.
+        var target = index(frames - 1);
+        var base   = frames - 1;
+        while (!keyframes[index(base)]) {
+            base--;
+        }
+
+        var baseIndex = index(base);
+        System.arraycopy(data, offset(starts[baseIndex]), current, 0, current.length);
+        System.arraycopy(current, 0, keyframe, 0, current.length);
+        if (!keyframes[target]) {
+            decode(data, offset(starts[target]), current);
+        }
+
+        framesSinceKeyframe = frames - 1 - base;
+        groupBytes          = 0;
+        for (var frame = base; frame < frames; frame++) {
+            groupBytes += lengths[index(frame)] + FRAME_OVERHEAD;
+        }
+
+        currentBuffer.clear();
+        cpu.restore(currentBuffer);
+        return true;
+    }
+
+    public void clear() {
+        frames      = 0;
+        head        = 0;
+        tail        = 0;
+        bytes       = 0;
+        groupBytes  = 0;
+        hasKeyframe = false;
+    }
+
+    private void append(byte[] source, int length, boolean isKeyframe) {
+        // A frame never wraps around the end of the ring, so the rest of the ring is skipped if it does not fit there.
+        var start = tail;
+        if (offset(start) + length > data.length) {
+            start += data.length - offset(start);
+        }
+        if (start + length - head > data.length) {
+            grow(length);
+            start = tail;
+        }
+        if (frames == starts.length) {
+            growFrames();
+        }
+
+        System.arraycopy(source, 0, data, offset(start), length);
+        var index = index(frames++);
+        starts[index]    = start;
+        lengths[index]   = length;
+        keyframes[index] = isKeyframe;
+        tail             = start + length;
+        bytes           += length + FRAME_OVERHEAD;
+        groupBytes      += length + FRAME_OVERHEAD;
+    }
+
+    private void dropOldestKeyframe() {
+        do {
+            bytes -= lengths[oldest] + FRAME_OVERHEAD;
+            oldest = (oldest + 1) % starts.length;
+            frames--;
+        } while (frames > 0 && !keyframes[oldest]);
+
+        if (frames == 0) {
+            clear();
+        } else {
+            head = starts[oldest];
+        }
+    }
+
+    private void dropNewest() {
+        var newest   = index(--frames);
+        var previous = index(frames - 1);
+        bytes -= lengths[newest] + FRAME_OVERHEAD;
+        tail   = starts[previous] + lengths[previous];
+    }
+
+    /**
+     * Copies the frames to the start of a ring with room for at least {@code length} more bytes.
+     */
+    private void grow(int length) {
+        var used = 0L;
+        for (var frame = 0; frame < frames; frame++) {
+            used += lengths[index(frame)];
+        }
+
+        var grown    = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(data.length * 2L, used + length))];
+        var position = 0;
+        for (var frame = 0; frame < frames; frame++) {
+            var index = index(frame);
+            System.arraycopy(data, offset(starts[index]), grown, position, lengths[index]);
+            starts[index] = position;
+            position     += lengths[index];
+        }
+
+        data = grown;
+        head = 0;
+        tail = position;
+    }
+
+    private void growFrames() {
+        var grownStarts    = new long[starts.length * 2];
+        var grownLengths   = new int[starts.length * 2];
+        var grownKeyframes = new boolean[starts.length * 2];
+        for (var frame = 0; frame < frames; frame++) {
+            var index = index(frame);
+            grownStarts[frame]    = starts[index];
+            grownLengths[frame]   = lengths[index];
+            grownKeyframes[frame] = keyframes[index];
+        }
+
+        starts    = grownStarts;
+        lengths   = grownLengths;
+        keyframes = grownKeyframes;
+        oldest    = 0;
+    }
+
+    private int index(int frame) {
+        return (oldest + frame) % starts.length;
+    }
+
+    private int offset(long position) {
+        return (int) (position % data.length);
+    }
+
+    /**
+     * Writes a mask of the pages differing between the snapshots, followed by each changed page XORed with the base and
+     * run-length encoded as alternating runs of unchanged and changed bytes.
+     *
+     * @return The number of bytes written to {@code out}.
+     */
+    static int encode(byte[] base, byte[] snapshot, byte[] out) {
+        var pages    = (snapshot.length + PAGE_SIZE - 1) / PAGE_SIZE;
+        var position = maskBytes(snapshot.length);
+        Arrays.fill(out, 0, position, (byte) 0);
+
+        for (var page = 0; page < pages; page++) {
+            var from = page * PAGE_SIZE;
+            var to   = Math.min(snapshot.length, from + PAGE_SIZE);
+            if (Arrays.equals(base, from, to, snapshot, from, to)) {
+                continue;
+            }
+
+            setMaskBit(out, page);
+
+            var index = from;
+            while (index < to) {
+                var unchanged = index;
+                while (index < to && base[index] == snapshot[index]) {
+                    index++;
+                }
+                var changed = index;
+                while (index < to && base[index] != snapshot[index]) {
+                    index++;
+                }
+
+                position = writeLength(out, position, changed - unchanged);
+                position = writeLength(out, position, index - changed);
+                for (var i = changed; i < index; i++) {
+                    out[position++] = (byte) (base[i] ^ snapshot[i]);
+                }
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Applies a delta written by {@link #encode(byte[], byte[], byte[])}, starting at {@code offset}, to a copy of its
+     * base.
+     */
+    static void decode(byte[] delta, int offset, byte[] snapshot) {
+        var pages    = (snapshot.length + PAGE_SIZE - 1) / PAGE_SIZE;
+        var position = offset + maskBytes(snapshot.length);
+
+        for (var page = 0; page < pages; page++) {
+            if ((delta[offset + (page >>> 3)] & 1 << (page & 7)) == 0) {
+                continue;
+            }
+
+            var index = page * PAGE_SIZE;
+            var to    = Math.min(snapshot.length, index + PAGE_SIZE);
+            while (index < to) {
+                var unchanged = 0;
+                var shift     = 0;
+                byte b;
+                do {
+                    b          = delta[position++];
+                    unchanged |= (b & 0x7F) << shift;
+                    shift     += 7;
+                } while (b < 0);
+
+                var changed = 0;
+                shift = 0;
+                do {
+                    b        = delta[position++];
+                    changed |= (b & 0x7F) << shift;
+                    shift   += 7;
+                } while (b < 0);
+
+                index += unchanged;
+                for (var i = 0; i < changed; i++) {
+                    snapshot[index++] ^= delta[position++];
+                }
+            }
+        }
+    }
+
+    private static int maskBytes(int snapshotLength) {
+        var pages = (snapshotLength + PAGE_SIZE - 1) / PAGE_SIZE;
+        return (pages + 7) / 8;
+    }
+
+    private static void setMaskBit(byte[] out, int page) {
+        out[page >>> 3] |= (byte) (1 << (page & 7));
+    }
+
+    private static int writeLength(byte[] out, int position, int length) {
+        while (length >= 0x80) {
+            out[position++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        out[position++] = (byte) length;
+        return position;
+    }
+}
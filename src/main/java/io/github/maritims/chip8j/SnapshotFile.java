@@ -0,0 +1,52 @@
+package io.github.maritims.chip8j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Reads and writes {@link CPU} snapshots as files. The overloads taking a buffer let callers reuse one buffer for many
+ * snapshots.
+ */
+public final class SnapshotFile {
+    private SnapshotFile() {
+    }
+
+    public static void write(Path path, CPU cpu) throws IOException {
+        write(path, cpu, ByteBuffer.allocateDirect(cpu.getSnapshotSize()));
+    }
+
+    public static void write(Path path, CPU cpu, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        cpu.snapshot(buffer);
+        buffer.flip();
+
+        try (var channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static void read(Path path, CPU cpu) throws IOException {
+        read(path, cpu, ByteBuffer.allocateDirect(cpu.getSnapshotSize()));
+    }
+
+    public static void read(Path path, CPU cpu, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(cpu.getSnapshotSize());
+
+        try (var channel = FileChannel.open(path, READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException(path + " is truncated");
+                }
+            }
+        }
+
+        buffer.flip();
+        cpu.restore(buffer);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.maritims.chip8j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static io.github.maritims.chip8j.TraceWriter.*;
+
+/**
+ * Turns a trace written by {@link TraceWriter} into one line of text per record, oldest first, with the mnemonic of
+ * the instruction and the state of the CPU before it ran.
+ *
+ * <pre>
+ * usage: TraceDecoder [--from address] [--to address] trace
+ * </pre>
+ * <p>
+ * The addresses are hexadecimal and inclusive, and only records whose PC lies between them are printed. A trace left
+ * behind by a crash decodes like any other, up to the last record written.
+ */
+public final class TraceDecoder {
+    private TraceDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var from = 0;
+        var to   = 0xFFFF;
+        Path trace = null;
+
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from" -> from = Integer.parseInt(args[++i], 16);
+                case "--to" -> to = Integer.parseInt(args[++i], 16);
+                default -> trace = Path.of(args[i]);
+            }
+        }
+
+        if (trace == null) {
+            System.err.println("usage: TraceDecoder [--from address] [--to address] trace");
+            System.exit(2);
+        }
+
+        var out = new BufferedWriter(new OutputStreamWriter(System.out));
+        decode(trace, from, to, out);
+        out.flush();
+    }
+
+    /**
+     * Writes the records whose PC is in {@code [from, to]} to {@code out}.
+     *
+     * @return The number of records written.
+     */
+    public static long decode(Path path, int from, int to, Writer out) throws IOException {
+        try (var channel = FileChannel.open(path)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(path + " is not a trace");
+            }
+
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a trace");
+            }
+            if (buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_SIZE) {
+                throw new IOException(path + " has unsupported version " + buffer.getShort(4));
+            }
+
+            var capacity = buffer.getInt(8);
+            var written  = buffer.getLong(WRITTEN_OFFSET);
+            if (capacity <= 0 || channel.size() < HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+                throw new IOException(path + " is truncated");
+            }
+
+            var count   = (int) Math.min(written, capacity);
+            var first   = (int) (written > capacity ? written % capacity : 0);
+            var printed = 0L;
+            var line    = new StringBuilder(128);
+            for (var i = 0; i < count; i++) {
+                var offset = HEADER_SIZE + (first + i) % capacity * RECORD_SIZE;
+                var PC     = buffer.getShort(offset + 4) & 0xFFFF;
+                if (PC < from || PC > to) {
+                    continue;
+                }
+
+                var opcode = buffer.getShort(offset + 6) & 0xFFFF;
+                line.setLength(0);
+                line.append(String.format("%10d  %04X  %04X  %-18s I=%04X SP=%X DT=%02X ST=%02X V=",
+                        Integer.toUnsignedLong(buffer.getInt(offset)),
+                        PC,
+                        opcode,
+                        Disassembler.disassemble(opcode),
+                        buffer.getShort(offset + 8) & 0xFFFF,
+                        buffer.get(offset + 10) & 0xFF,
+                        buffer.get(offset + 11) & 0xFF,
+                        buffer.get(offset + 12) & 0xFF));
+                for (var x = 0; x < 16; x++) {
+                    line.append(String.format("%02X", buffer.get(offset + 16 + x) & 0xFF));
+                }
+                out.append(line).append(System.lineSeparator());
+                printed++;
+            }
+            return printed;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.maritims.chip8j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Records the state of the {@link CPU} before every instruction it executes into a ring of fixed-width records in a
+ * memory-mapped file. Once the ring is full the oldest records are overwritten. Since every record goes straight into
+ * the mapping, the operating system writes the trace out even if the JVM crashes. {@link TraceDecoder} turns the file
+ * into text.
+ * <p>
+ * The file starts with a {@value #HEADER_SIZE} byte header: the magic, the version, the record size, the capacity in
+ * records and, at {@link #WRITTEN_OFFSET}, the number of records written so far. Every record is
+ * {@value #RECORD_SIZE} bytes:
+ * <pre>
+ *  0  int    the instruction count, modulo 2^32
+ *  4  short  PC
+ *  6  short  opcode
+ *  8  short  I
+ * 10  byte   SP
+ * 11  byte   delay timer
+ * 12  byte   sound timer
+ * 13  3 bytes reserved
+ * 16  16 bytes V0 to VF
+ * </pre>
+ * Everything is little-endian.
+ */
+public final class TraceWriter implements Closeable {
+    public static final int MAGIC   = 0x43385452;
+    public static final int VERSION = 1;
+
+    static final int HEADER_SIZE    = 32;
+    static final int RECORD_SIZE    = 32;
+    static final int WRITTEN_OFFSET = 16;
+    static final int MAX_CAPACITY   = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final MappedByteBuffer buffer;
+    private final int              capacity;
+    private       int              next;
+    private       long             written;
+
+    private TraceWriter(MappedByteBuffer buffer, int capacity) {
+        this.buffer   = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a trace at {@code path}, replacing any existing file, with room for the last {@code capacity} records.
+     */
+    public static TraceWriter create(Path path, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY + ", but was " + capacity);
+        }
+
+        try (var channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(0, MAGIC)
+                    .putShort(4, (short) VERSION)
+                    .putShort(6, (short) RECORD_SIZE)
+                    .putInt(8, capacity)
+                    .putLong(WRITTEN_OFFSET, 0);
+            return new TraceWriter(buffer, capacity);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return How many records were written, including those which have since been overwritten.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    void write(long instruction, int PC, int opcode, int I, int SP, int delayTimer, int soundTimer, int[] V) {
+        var offset = HEADER_SIZE + next * RECORD_SIZE;
+        var low    = 0L;
+        var high   = 0L;
+        for (var i = 0; i < 8; i++) {
+            low  |= (long) V[i] << (i * 8);
+            high |= (long) V[i + 8] << (i * 8);
+        }
+
+        buffer.putInt(offset, (int) instruction)
+                .putShort(offset + 4, (short) PC)
+                .putShort(offset + 6, (short) opcode)
+                .putShort(offset + 8, (short) I)
+                .putInt(offset + 10, SP | delayTimer << 8 | soundTimer << 16)
+                .putLong(offset + 16, low)
+                .putLong(offset + 24, high);
+
+        if (++next == capacity) {
+            next = 0;
+        }
+        buffer.putLong(WRITTEN_OFFSET, ++written);
+    }
+
+    /**
+     * Asks the operating system to write the trace to disk. Closing the trace does not unmap it, which happens once
+     * the writer is garbage collected.
+     */
+    @Override
+    public void close() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,187 @@
+package io.github.maritims.chip8j.analysis;
+
+import io.github.maritims.chip8j.QuirkProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps {@link RomAnalysis} results in a directory, one file per ROM and quirk profile named after the SHA-256 of the
+ * ROM, so each ROM is only analyzed the first time it is loaded. Files are written to a temporary name and moved into
+ * place, so a reader never sees half a file. A file which cannot be read is analyzed again and replaced.
+ */
+public final class AnalysisCache {
+    private static final Logger log = LoggerFactory.getLogger(AnalysisCache.class);
+
+    public static final int MAGIC   = 0x4338414E;
+    public static final int VERSION = 1;
+
+    private final Path directory;
+
+    public AnalysisCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return {@code ~/.chip8j/analysis}.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".chip8j", "analysis");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The cached analysis of the ROM, analyzing and caching it first if there is none.
+     */
+    public RomAnalysis get(byte[] program, QuirkProfile quirks) throws IOException {
+        var hash = sha256(program);
+        var file = directory.resolve(HexFormat.of().formatHex(hash) + "-" + quirks.name().toLowerCase() + ".c8a");
+        if (Files.exists(file)) {
+            try {
+                return read(file, hash);
+            } catch (IOException e) {
+                log.warn("Analyzing again, since the cached analysis {} is unreadable", file, e);
+            }
+        }
+
+        var analysis = RomAnalyzer.analyze(program, quirks);
+        Files.createDirectories(directory);
+        var temporary = Files.createTempFile(directory, "analysis", ".tmp");
+        try {
+            write(temporary, hash, analysis);
+            Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return analysis;
+    }
+
+    private static void write(Path path, byte[] hash, RomAnalysis analysis) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.write(hash);
+
+            out.writeInt(analysis.blocks().size());
+            for (var block : analysis.blocks()) {
+                out.writeShort(block.start());
+                out.writeInt(block.end());
+                writeAddresses(out, block.successors());
+            }
+
+            out.writeInt(analysis.subroutines().size());
+            for (var subroutine : analysis.subroutines()) {
+                out.writeShort(subroutine.entry());
+                writeAddresses(out, subroutine.returns());
+            }
+
+            writeAddresses(out, analysis.jumpTargets());
+            writeAddresses(out, analysis.indirectJumps());
+            writeRanges(out, analysis.code());
+            writeRanges(out, analysis.data());
+
+            out.writeInt(analysis.writes().size());
+            for (var write : analysis.writes()) {
+                out.writeShort(write.address());
+                out.writeInt(write.target());
+                out.writeShort(write.length());
+                out.writeBoolean(write.mayModifyCode());
+            }
+        }
+    }
+
+    private static RomAnalysis read(Path path, byte[] hash) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an analysis");
+            }
+
+            var version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported version " + version);
+            }
+            if (!MessageDigest.isEqual(hash, in.readNBytes(hash.length))) {
+                throw new IOException(path + " belongs to another ROM");
+            }
+
+            var blocks = new ArrayList<RomAnalysis.Block>();
+            for (var i = in.readInt(); i > 0; i--) {
+                blocks.add(new RomAnalysis.Block(in.readUnsignedShort(), in.readInt(), readAddresses(in)));
+            }
+
+            var subroutines = new ArrayList<RomAnalysis.Subroutine>();
+            for (var i = in.readInt(); i > 0; i--) {
+                subroutines.add(new RomAnalysis.Subroutine(in.readUnsignedShort(), readAddresses(in)));
+            }
+
+            var jumpTargets   = readAddresses(in);
+            var indirectJumps = readAddresses(in);
+            var code          = readRanges(in);
+            var data          = readRanges(in);
+
+            var writes = new ArrayList<RomAnalysis.MemoryWrite>();
+            for (var i = in.readInt(); i > 0; i--) {
+                writes.add(new RomAnalysis.MemoryWrite(in.readUnsignedShort(), in.readInt(), in.readUnsignedShort(), in.readBoolean()));
+            }
+
+            return new RomAnalysis(blocks, subroutines, jumpTargets, indirectJumps, code, data, writes);
+        }
+    }
+
+    private static void writeAddresses(DataOutputStream out, List<Integer> addresses) throws IOException {
+        out.writeInt(addresses.size());
+        for (var address : addresses) {
+            out.writeShort(address);
+        }
+    }
+
+    private static List<Integer> readAddresses(DataInputStream in) throws IOException {
+        var addresses = new ArrayList<Integer>();
+        for (var i = in.readInt(); i > 0; i--) {
+            addresses.add(in.readUnsignedShort());
+        }
+        return addresses;
+    }
+
+    private static void writeRanges(DataOutputStream out, List<RomAnalysis.Range> ranges) throws IOException {
+        out.writeInt(ranges.size());
+        for (var range : ranges) {
+            out.writeShort(range.start());
+            out.writeInt(range.end());
+        }
+    }
+
+    private static List<RomAnalysis.Range> readRanges(DataInputStream in) throws IOException {
+        var ranges = new ArrayList<RomAnalysis.Range>();
+        for (var i = in.readInt(); i > 0; i--) {
+            ranges.add(new RomAnalysis.Range(in.readUnsignedShort(), in.readInt()));
+        }
+        return ranges;
+    }
+
+    private static byte[] sha256(byte[] program) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(program);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.maritims.chip8j.analysis;
+
+import java.util.List;
+
+/**
+ * What {@link RomAnalyzer} found out about a ROM without running it. Every address is an absolute memory address, and
+ * every list is ordered by address.
+ *
+ * @param blocks        The basic blocks reachable from the entry point.
+ * @param subroutines   The targets of {@code 2nnn}, with the {@code 00EE} instructions which return from them.
+ * @param jumpTargets   The targets of {@code 1nnn} and {@code 2nnn}.
+ * @param indirectJumps The {@code Bnnn} instructions, whose targets depend on a register.
+ * @param code          The ranges holding reachable instructions.
+ * @param data          The ranges of the ROM which are never reached as instructions.
+ * @param writes        The instructions which store registers in memory.
+ */
+public record RomAnalysis(
+        List<Block> blocks,
+        List<Subroutine> subroutines,
+        List<Integer> jumpTargets,
+        List<Integer> indirectJumps,
+        List<Range> code,
+        List<Range> data,
+        List<MemoryWrite> writes
+) {
+    /**
+     * A run of instructions which is only entered at {@code start} and only left after its last instruction.
+     *
+     * @param end        The address after the last instruction.
+     * @param successors Where execution may continue after the block. A call continues after its return.
+     */
+    public record Block(int start, int end, List<Integer> successors) {
+    }
+
+    /**
+     * @param returns The {@code 00EE} instructions reachable from the entry without following calls.
+     */
+    public record Subroutine(int entry, List<Integer> returns) {
+    }
+
+    /**
+     * The addresses {@code [start, end)}.
+     */
+    public record Range(int start, int end) {
+        public int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * An {@code Fx33}, {@code Fx55} or {@code 5xy2} instruction.
+     *
+     * @param address       The address of the instruction.
+     * @param target        The first address written, or -1 if I is not known where the instruction runs.
+     * @param length        The number of bytes written.
+     * @param mayModifyCode Whether the write may hit an instruction, because it overlaps {@link #code} or its target
+     *                      is unknown.
+     */
+    public record MemoryWrite(int address, int target, int length, boolean mayModifyCode) {
+    }
+
+    public int dataBytes() {
+        return data.stream().mapToInt(Range::length).sum();
+    }
+
+    /**
+     * @return The writes which may modify code, and which therefore invalidate anything derived from this analysis.
+     */
+    public List<MemoryWrite> selfModifyingWrites() {
+        return writes.stream().filter(MemoryWrite::mayModifyCode).toList();
+    }
+}
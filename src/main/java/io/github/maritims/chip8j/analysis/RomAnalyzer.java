@@ -0,0 +1,243 @@
+package io.github.maritims.chip8j.analysis;
+
+import io.github.maritims.chip8j.Instruction;
+import io.github.maritims.chip8j.QuirkProfile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static io.github.maritims.chip8j.Instruction.*;
+
+/**
+ * Finds the code of a ROM by following every path from the entry point at {@code 0x200} through the memory image the
+ * CPU would load it into, decoding instructions the way the quirk profile does. Jumps through {@code Bnnn} cannot be
+ * followed, so code only reached that way is reported as data.
+ * <p>
+ * I is tracked through each basic block from {@code Annn} and {@code F000 nnnn}, which tells where most {@code Fx33},
+ * {@code Fx55} and {@code 5xy2} instructions write.
+ */
+public final class RomAnalyzer {
+    public static final int PROGRAM_START = 0x200;
+
+    private final byte[]                    memory;
+    private final int                       end;
+    private final QuirkProfile              quirks;
+    private final TreeMap<Integer, Integer> instructions = new TreeMap<>();
+    private final TreeSet<Integer>          leaders      = new TreeSet<>();
+    private final TreeSet<Integer>          jumpTargets  = new TreeSet<>();
+    private final TreeSet<Integer>          callTargets  = new TreeSet<>();
+    private final TreeSet<Integer>          indirect     = new TreeSet<>();
+    private final BitSet                    code         = new BitSet();
+
+    private RomAnalyzer(byte[] program, QuirkProfile quirks) {
+        this.memory = new byte[quirks.supportsXoChip() ? 0x10000 : 0x1000];
+        this.end    = PROGRAM_START + program.length;
+        this.quirks = quirks;
+        if (program.length > memory.length - PROGRAM_START) {
+            throw new IllegalArgumentException("Program is " + program.length + " bytes, but only " + (memory.length - PROGRAM_START) + " bytes are available");
+        }
+        System.arraycopy(program, 0, memory, PROGRAM_START, program.length);
+    }
+
+    public static RomAnalysis analyze(byte[] program, QuirkProfile quirks) {
+        return new RomAnalyzer(program, quirks).analyze();
+    }
+
+    private RomAnalysis analyze() {
+        explore();
+
+        var blocks = new ArrayList<RomAnalysis.Block>();
+        var writes = new ArrayList<RomAnalysis.MemoryWrite>();
+        for (var leader : leaders) {
+            blocks.add(block(leader, writes));
+        }
+        writes.sort((a, b) -> Integer.compare(a.address(), b.address()));
+
+        var blocksByStart = new HashMap<Integer, RomAnalysis.Block>();
+        for (var block : blocks) {
+            blocksByStart.put(block.start(), block);
+        }
+        var subroutines = new ArrayList<RomAnalysis.Subroutine>();
+        for (var entry : callTargets) {
+            subroutines.add(new RomAnalysis.Subroutine(entry, returnsFrom(entry, blocksByStart)));
+        }
+
+        return new RomAnalysis(
+                blocks,
+                subroutines,
+                List.copyOf(jumpTargets),
+                List.copyOf(indirect),
+                ranges(true),
+                ranges(false),
+                writes);
+    }
+
+    /**
+     * Decodes every instruction reachable from the entry point and collects the addresses which start a block.
+     */
+    private void explore() {
+        var pending = new ArrayDeque<Integer>();
+        branch(pending, PROGRAM_START);
+
+        while (!pending.isEmpty()) {
+            var address = pending.pop();
+            while (inProgram(address) && !instructions.containsKey(address)) {
+                var instruction = decodeAt(address);
+                var next        = address + lengthAt(address);
+                instructions.put(address, instruction);
+                code.set(address, Math.min(next, end));
+
+                switch (handler(instruction)) {
+                    case OP_1nnn -> jumpTargets.add(nnn(instruction));
+                    case OP_2nnn -> {
+                        jumpTargets.add(nnn(instruction));
+                        callTargets.add(nnn(instruction));
+                        branch(pending, nnn(instruction));
+                    }
+                    case OP_Bnnn, OP_Bxnn -> indirect.add(address);
+                }
+
+                var successors = successors(address, instruction);
+                if (successors == null) {
+                    address = next;
+                    continue;
+                }
+                for (var successor : successors) {
+                    branch(pending, successor);
+                }
+                break;
+            }
+        }
+
+        leaders.removeIf(leader -> !instructions.containsKey(leader));
+    }
+
+    private void branch(ArrayDeque<Integer> pending, int target) {
+        if (inProgram(target)) {
+            leaders.add(target);
+            pending.push(target);
+        }
+    }
+
+    /**
+     * @return Where execution may continue after the instruction if it ends a block, or null if it falls through to
+     * the next one. A call continues after its return.
+     */
+    private List<Integer> successors(int address, int instruction) {
+        var next = address + lengthAt(address);
+        return switch (handler(instruction)) {
+            case OP_1nnn -> List.of(nnn(instruction));
+            case OP_2nnn -> List.of(next);
+            case OP_00EE, OP_00FD, OP_Bnnn, OP_Bxnn, OP_NULL -> List.of();
+            case OP_3xnn, OP_4xnn, OP_5xy0, OP_9xy0, OP_Ex9E, OP_ExA1 -> List.of(next, next + 2);
+            case OP_3xnn_long, OP_4xnn_long, OP_5xy0_long, OP_9xy0_long, OP_Ex9E_long, OP_ExA1_long -> List.of(next, next + lengthAt(next));
+            default -> null;
+        };
+    }
+
+    /**
+     * Walks the block starting at {@code leader}, recording the memory writes in it.
+     */
+    private RomAnalysis.Block block(int leader, List<RomAnalysis.MemoryWrite> writes) {
+        var address = leader;
+        var I       = -1;
+        while (true) {
+            var instruction = instructions.get(address);
+            var next        = address + lengthAt(address);
+            var x           = x(instruction);
+
+            switch (handler(instruction)) {
+                case OP_Annn -> I = nnn(instruction);
+                case OP_F000 -> I = next > end ? -1 : (memory[address + 2] & 0xFF) << 8 | (memory[address + 3] & 0xFF);
+                case OP_Fx1E, OP_Fx29, OP_Fx30 -> I = -1;
+                case OP_Fx33 -> writes.add(write(address, I, 3));
+                case OP_Fx55 -> writes.add(write(address, I, x + 1));
+                case OP_Fx55_incrementI -> {
+                    writes.add(write(address, I, x + 1));
+                    I = I < 0 ? -1 : I + x + 1;
+                }
+                case OP_Fx55_incrementIByX -> {
+                    writes.add(write(address, I, x + 1));
+                    I = I < 0 ? -1 : I + x;
+                }
+                case OP_Fx65_incrementI -> I = I < 0 ? -1 : I + x + 1;
+                case OP_Fx65_incrementIByX -> I = I < 0 ? -1 : I + x;
+                case OP_5xy2 -> writes.add(write(address, I, Math.abs(x - y(instruction)) + 1));
+            }
+
+            var successors = successors(address, instruction);
+            if (successors != null) {
+                return new RomAnalysis.Block(leader, next, successors.stream().filter(instructions::containsKey).toList());
+            }
+            if (leaders.contains(next) || !instructions.containsKey(next)) {
+                return new RomAnalysis.Block(leader, next, instructions.containsKey(next) ? List.of(next) : List.of());
+            }
+            address = next;
+        }
+    }
+
+    private RomAnalysis.MemoryWrite write(int address, int target, int length) {
+        var mayModifyCode = target < 0 || code.get(target, target + length).cardinality() > 0;
+        return new RomAnalysis.MemoryWrite(address, target, length, mayModifyCode);
+    }
+
+    /**
+     * @return The {@code 00EE} instructions reachable from {@code entry}, stepping over calls.
+     */
+    private List<Integer> returnsFrom(int entry, HashMap<Integer, RomAnalysis.Block> blocksByStart) {
+        var returns = new TreeSet<Integer>();
+        var visited = new TreeSet<Integer>();
+        var pending = new ArrayDeque<Integer>();
+        pending.push(entry);
+
+        while (!pending.isEmpty()) {
+            var block = blocksByStart.get(pending.pop());
+            if (block == null || !visited.add(block.start())) {
+                continue;
+            }
+
+            var last = instructions.floorKey(block.end() - 1);
+            if (handler(instructions.get(last)) == OP_00EE) {
+                returns.add(last);
+            }
+            for (var successor : block.successors()) {
+                pending.push(successor);
+            }
+        }
+        return List.copyOf(returns);
+    }
+
+    private List<RomAnalysis.Range> ranges(boolean isCode) {
+        var ranges = new ArrayList<RomAnalysis.Range>();
+        var start  = isCode ? code.nextSetBit(PROGRAM_START) : code.nextClearBit(PROGRAM_START);
+        while (start >= 0 && start < end) {
+            var stop = Math.min(isCode ? code.nextClearBit(start) : code.nextSetBit(start), end);
+            if (stop < 0) {
+                stop = end;
+            }
+            ranges.add(new RomAnalysis.Range(start, stop));
+            start = isCode ? code.nextSetBit(stop) : code.nextClearBit(stop);
+        }
+        return ranges;
+    }
+
+    private boolean inProgram(int address) {
+        return address >= PROGRAM_START && address < end - 1;
+    }
+
+    private int decodeAt(int address) {
+        return Instruction.decode((memory[address] & 0xFF) << 8 | (memory[address + 1] & 0xFF), quirks);
+    }
+
+    /**
+     * @return The length in bytes of the instruction at the address, which is 4 for {@code F000 nnnn} and 2 otherwise.
+     */
+    private int lengthAt(int address) {
+        return quirks.supportsXoChip() && address < end - 1 && memory[address] == (byte) 0xF0 && memory[address + 1] == 0 ? 4 : 2;
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.Chip8Machine;
+import io.github.maritims.chip8j.InputLog;
+import io.github.maritims.chip8j.QuirkProfile;
+import io.github.maritims.chip8j.Recording;
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import io.github.maritims.chip8j.library.RomVariant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs every combination of ROMs, quirk profiles, seeds and input scripts in parallel and prints one tab separated line per job as it
+ * finishes.
+ *
+ * <pre>
+ * usage: BatchCli [--cycles n] [--ipf n] [--threads n] [--seeds a,b,...] [--quirks a,b,...] [--jit] [--skip-idle] [--input script]... [--replay log]... rom-or-directory...
+ * </pre>
+ * <p>
+ * An input script has one event per line, such as {@code 1200 5 down} or {@code 1500 5 up}: the instruction count, the
+ * hexadecimal keypad key and whether it is pressed or released. The events must be in order of their instruction counts.
+ * Blank lines and lines starting with {@code #} are ignored.
+ * <p>
+ * Directories are searched for ROMs with any of the extensions {@link RomVariant#isRom(String)} accepts. Quirk profiles
+ * are named like the constants of {@link QuirkProfile}, in any case, and default to the profile
+ * {@link RomVariant#detect(String, byte[])} picks for each ROM.
+ * <p>
+ * {@code --jit} compiles hot blocks to JVM bytecode and {@code --skip-idle} fast-forwards loops waiting for the delay
+ * timer. Both only change how fast the jobs run, not their results.
+ * <p>
+ * A replay is an {@link InputLog} recorded by the emulator. It runs against every ROM it was recorded with, using the
+ * quirks, seed, speed and length of the recorded session instead of the options above.
+ */
+public class BatchCli {
+    public static void main(String[] args) throws Exception {
+        var cycles  = 1_000_000L;
+        var ipf     = Chip8Machine.DEFAULT_INSTRUCTIONS_PER_FRAME;
+        var threads = Runtime.getRuntime().availableProcessors();
+        var jit     = false;
+        var idle    = false;
+        var seeds   = List.of(0L);
+        var quirks  = List.<QuirkProfile>of();
+        var scripts = new ArrayList<Path>();
+        var replays = new ArrayList<Path>();
+        var roms    = new ArrayList<Path>();
+
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cycles" -> cycles = Long.parseLong(args[++i]);
+                case "--ipf" -> ipf = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seeds" -> seeds = Stream.of(args[++i].split(",")).map(Long::parseLong).toList();
+                case "--quirks" -> quirks = Stream.of(args[++i].split(",")).map(name -> QuirkProfile.valueOf(name.toUpperCase())).toList();
+                case "--jit" -> jit = true;
+                case "--skip-idle" -> idle = true;
+                case "--input" -> scripts.add(Path.of(args[++i]));
+                case "--replay" -> replays.add(Path.of(args[++i]));
+                default -> roms.addAll(findRoms(Path.of(args[i])));
+            }
+        }
+
+        if (roms.isEmpty()) {
+            System.err.println("usage: BatchCli [--cycles n] [--ipf n] [--threads n] [--seeds a,b,...] [--quirks a,b,...] [--jit] [--skip-idle] [--input script]... [--replay log]... rom-or-directory...");
+            System.exit(2);
+        }
+
+        var inputs = new ArrayList<List<InputEvent>>();
+        var labels = new ArrayList<String>();
+        if (scripts.isEmpty()) {
+            inputs.add(List.of());
+            labels.add("-");
+        }
+        for (var script : scripts) {
+            inputs.add(readScript(script));
+            labels.add(script.getFileName().toString());
+        }
+
+        var recordings = new ArrayList<Recording>();
+        for (var replay : replays) {
+            recordings.add(InputLog.read(replay));
+        }
+
+        var jobs = new ArrayList<BatchJob>();
+        for (var rom : roms) {
+            var program = Files.readAllBytes(rom);
+            for (var i = 0; i < recordings.size(); i++) {
+                var recording = recordings.get(i);
+                if (recording.matches(program)) {
+                    var name = rom.getFileName() + "\t" + recording.quirks() + "\t" + recording.seed() + "\t" + replays.get(i).getFileName();
+                    jobs.add(new BatchJob(name, program, recording.instructions(), recording.instructionsPerFrame(), recording.seed(), recording.events(), jit, idle, recording.quirks()));
+                }
+            }
+            if (!replays.isEmpty() && scripts.isEmpty()) {
+                continue;
+            }
+
+            var profiles = quirks.isEmpty() ? List.of(RomVariant.detect(rom.getFileName().toString(), program).getQuirkProfile()) : quirks;
+            for (var quirk : profiles) {
+                for (var seed : seeds) {
+                    for (var i = 0; i < inputs.size(); i++) {
+                        var name = rom.getFileName() + "\t" + quirk + "\t" + seed + "\t" + labels.get(i);
+                        jobs.add(new BatchJob(name, program, cycles, ipf, seed, inputs.get(i), jit, idle, quirk));
+                    }
+                }
+            }
+        }
+
+        System.out.println("rom\tquirks\tseed\tinput\tframebuffer\tPC\tI\tV\tinstructions\tskipped\tips\terror");
+        try (var runner = new BatchRunner(threads)) {
+            runner.run(jobs, BatchCli::print);
+        }
+    }
+
+    private static void print(BatchResult result) {
+        var state = result.state();
+        if (state == null) {
+            System.out.printf("%s\t\t\t\t\t\t\t\t%s%n", result.job().name(), result.error());
+            return;
+        }
+
+        var registers = new StringBuilder();
+        for (var V : state.V()) {
+            registers.append(String.format("%02X", V));
+        }
+        System.out.printf("%s\t%016X\t%04X\t%04X\t%s\t%d\t%d\t%.0f\t%n",
+                result.job().name(),
+                result.framebufferHash(),
+                state.PC(),
+                state.I(),
+                registers,
+                state.instructionCount(),
+                state.skippedInstructions(),
+                result.instructionsPerSecond());
+    }
+
+    static List<Path> findRoms(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (var files = Files.walk(path)) {
+            return files.filter(file -> RomVariant.isRom(file.getFileName().toString()) && Files.isRegularFile(file)).sorted().toList();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If a line is malformed or stamped before the event above it.
+     */
+    static List<InputEvent> readScript(Path script) throws IOException {
+        var events = new ArrayList<InputEvent>();
+        var lines  = Files.readAllLines(script);
+        var last   = 0L;
+        for (var i = 0; i < lines.size(); i++) {
+            var number = i + 1;
+            var line   = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            var parts = line.split("\\s+");
+            if (parts.length < 3) {
+                throw invalid(script, number, "expected an instruction count, a key and down or up, but got \"" + line + "\"");
+            }
+
+            long instruction;
+            int  code;
+            try {
+                instruction = Long.parseLong(parts[0]);
+                code        = Integer.parseInt(parts[1], 16);
+            } catch (NumberFormatException e) {
+                throw invalid(script, number, e.getMessage());
+            }
+            if (instruction < last) {
+                throw invalid(script, number, "instruction " + instruction + " comes before the previous event at " + last);
+            }
+
+            var key = KeypadKey.fromCosmacVipKeyCode(code)
+                    .orElseThrow(() -> invalid(script, number, "unknown key " + parts[1]));
+            var pressed = switch (parts[2]) {
+                case "down" -> true;
+                case "up" -> false;
+                default -> throw invalid(script, number, "expected down or up, but got " + parts[2]);
+            };
+            events.add(new InputEvent(instruction, key, pressed));
+            last = instruction;
+        }
+        return events;
+    }
+
+    private static IllegalArgumentException invalid(Path script, int line, String message) {
+        return new IllegalArgumentException(script + ":" + line + ": " + message);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.QuirkProfile;
+import io.github.maritims.chip8j.keypad.InputEvent;
+
+import java.util.List;
+
+/**
+ * One headless run of a program.
+ *
+ * @param name                 A label for the job, which is echoed in its result.
+ * @param program              The ROM. It is only read, so one array can be shared by many jobs.
+ * @param cycleBudget          The maximum number of instructions to execute.
+ * @param instructionsPerFrame How many instructions run per 60 Hz timer tick.
+ * @param seed                 The seed of the random number generator.
+ * @param inputs               Keypad events ordered by instruction, see
+ *                             {@link io.github.maritims.chip8j.Chip8Machine#run(byte[], long, long, List)}.
+ * @param useRecompiler        Whether hot basic blocks are compiled to JVM bytecode.
+ * @param skipIdleLoops        Whether loops waiting for the delay timer are fast-forwarded.
+ * @param quirks               The behaviour of the instructions which differ between implementations.
+ */
+public record BatchJob(
+        String name,
+        byte[] program,
+        long cycleBudget,
+        int instructionsPerFrame,
+        long seed,
+        List<InputEvent> inputs,
+        boolean useRecompiler,
+        boolean skipIdleLoops,
+        QuirkProfile quirks
+) {
+}
@@ -0,0 +1,27 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.MachineState;
+
+/**
+ * The outcome of a {@link BatchJob}. Either {@code state} or {@code error} is null.
+ */
+public record BatchResult(BatchJob job, MachineState state, Throwable error, long elapsedNanos) {
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public long framebufferHash() {
+        return state == null ? 0 : state.framebuffer().contentHash();
+    }
+
+    /**
+     * @return How many instructions were actually executed per second. Skipped idle loop passes are left out, as they
+     *         cost nothing and would make a job skipping them look faster than it is.
+     */
+    public double instructionsPerSecond() {
+        if (state == null || elapsedNanos == 0) {
+            return 0;
+        }
+        return (state.instructionCount() - state.skippedInstructions()) * 1_000_000_000d / elapsedNanos;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.Chip8Machine;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs batch jobs in parallel, each on its own {@link Chip8Machine}. Jobs share nothing but their ROM bytes, so they
+ * scale with the number of cores. The runner registers one {@link EmulatorMetrics} with JMX for its lifetime, and every
+ * job adds its counts to it when it finishes.
+ */
+public class BatchRunner implements AutoCloseable {
+    private final ForkJoinPool    pool;
+    private final EmulatorMetrics metrics;
+
+    // Serialises the result callbacks. It is private, so no caller can hold it and stall the workers.
+    private final Object resultLock = new Object();
+
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRunner(int parallelism) {
+        this.pool    = new ForkJoinPool(parallelism);
+        this.metrics = new EmulatorMetrics().register();
+    }
+
+    /**
+     * @return The sum of the metrics of every job finished so far.
+     */
+    public EmulatorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Runs every job and blocks until all of them have finished.
+     *
+     * @param onResult Called with each result as soon as its job finishes. Calls come from the worker threads, but
+     *                 never concurrently.
+     */
+    public void run(List<BatchJob> jobs, Consumer<BatchResult> onResult) {
+        var tasks = jobs.stream()
+                .map(job -> pool.submit(() -> {
+                    var result = execute(job, metrics);
+                    synchronized (resultLock) {
+                        onResult.accept(result);
+                    }
+                }))
+                .toList();
+
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    static BatchResult execute(BatchJob job, EmulatorMetrics total) {
+        var metrics = new EmulatorMetrics();
+        var machine = new Chip8Machine(job.instructionsPerFrame(), job.useRecompiler(), job.skipIdleLoops(), job.quirks()).setMetrics(metrics);
+        var start   = System.nanoTime();
+        try {
+            var state = machine.run(job.program(), job.cycleBudget(), job.seed(), job.inputs());
+            return new BatchResult(job, state, null, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            return new BatchResult(job, null, e, System.nanoTime() - start);
+        } finally {
+            total.add(metrics, System.nanoTime());
+        }
+    }
+
+    /**
+     * Waits up to a minute for running jobs to finish. If the calling thread is interrupted, the jobs are cancelled and
+     * the interrupt flag is kept set.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.close();
+        }
+    }
+}
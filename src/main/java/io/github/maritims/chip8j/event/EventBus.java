@@ -0,0 +1,221 @@
+package io.github.maritims.chip8j.event;
+
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carries events from the emulation thread to listeners without ever making it wait for them. Events are packed into
+ * longs in a preallocated ring, so publishing is an array store and an ordered write of the tail, and allocates
+ * nothing. If the listeners fall a whole ring behind, new events are dropped and counted instead.
+ * <p>
+ * The bus has its own thread, which is woken at the end of every frame. It hands everything published since it last
+ * ran to the {@link EventListener}s as one batch, then coalesces the events to the latest value of each type and hands
+ * that to the {@link FrameListener}s on the event dispatch thread. If the event dispatch thread is still busy with the
+ * previous frame, the changes are merged into the next one, so a slow UI never queues up frames. Changes left over
+ * when the bus runs out of events are delivered as soon as the event dispatch thread is free.
+ * <p>
+ * Only one thread may publish.
+ */
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final    long[]          ring;
+    private final    int             mask;
+    private final    AtomicLong      head           = new AtomicLong();
+    private final    AtomicLong      tail           = new AtomicLong();
+    private final    AtomicBoolean   framePending   = new AtomicBoolean();
+    private final    EventSnapshot   latest         = new EventSnapshot();
+    private final    EventSnapshot   shown          = new EventSnapshot();
+    private final    Runnable        deliverFrame   = this::deliverFrame;
+    private volatile EventListener[] listeners      = new EventListener[0];
+    private volatile FrameListener[] frameListeners = new FrameListener[0];
+    private volatile boolean         running;
+    private volatile Thread          thread;
+    private volatile long            published;
+    private volatile long            dropped;
+
+    // Only touched by the publisher.
+    private long cachedHead;
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity How many events may wait for the listeners, which must be a power of two.
+     */
+    public EventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, but was " + capacity);
+        }
+
+        this.ring = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    // The listeners are copied on write into plain arrays, so iterating them for every event allocates nothing.
+    public synchronized void addListener(EventListener listener) {
+        listeners = add(listeners, listener);
+    }
+
+    public synchronized void removeListener(EventListener listener) {
+        listeners = remove(listeners, listener);
+    }
+
+    public synchronized void addFrameListener(FrameListener listener) {
+        frameListeners = add(frameListeners, listener);
+    }
+
+    public synchronized void removeFrameListener(FrameListener listener) {
+        frameListeners = remove(frameListeners, listener);
+    }
+
+    /**
+     * @param value       The value of the event, of which only the lower 24 bits are kept.
+     * @param instruction The instruction count, of which only the lower 32 bits are kept.
+     * @return Whether the event was published, which it is not if the ring is full.
+     */
+    public boolean publish(EventType type, int value, long instruction) {
+        var next = tail.getPlain();
+        if (next - cachedHead >= ring.length) {
+            cachedHead = head.getAcquire();
+            if (next - cachedHead >= ring.length) {
+                dropped++;
+                return false;
+            }
+        }
+
+        ring[(int) next & mask] = instruction << 32 | (long) type.ordinal() << 24 | value & 0xFFFFFF;
+        tail.setRelease(next + 1);
+        published++;
+        return true;
+    }
+
+    /**
+     * Publishes the end of a frame and wakes the bus, so the frame's events are delivered.
+     *
+     * @param opcode The opcode of the last instruction executed.
+     */
+    public void endFrame(int opcode, long instruction) {
+        publish(EventType.FRAME, opcode, instruction);
+        var current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("The event bus is already running");
+        }
+
+        running = true;
+        thread  = new Thread(this::run, "chip8j-event-bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the bus after it has delivered the events published so far. If the calling thread is interrupted, it stops
+     * waiting for the delivery and keeps its interrupt flag set.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+
+        var current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                // The bus thread still finishes by itself, since it is no longer running.
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            var available = tail.getAcquire();
+            var next      = head.getPlain();
+            if (next == available) {
+                // Changes published while the previous frame was pending, or after the last frame, go out before
+                // waiting, so the listeners always end up with the latest values.
+                coalesceFrame();
+                if (!running) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+
+            var listeners = this.listeners;
+            for (; next < available; next++) {
+                var event       = ring[(int) next & mask];
+                var type        = EventType.of((int) (event >>> 24 & 0xFF));
+                var value       = (int) event & 0xFFFFFF;
+                var instruction = event >>> 32;
+                for (var listener : listeners) {
+                    listener.onEvent(type, value, instruction, next == available - 1);
+                }
+
+                latest.set(type, value);
+                if (type == EventType.FRAME) {
+                    coalesceFrame();
+                }
+            }
+            head.setRelease(next);
+        }
+    }
+
+    private void coalesceFrame() {
+        if (!latest.hasChanges() || frameListeners.length == 0) {
+            return;
+        }
+
+        // The snapshot handed over is only written again once the previous one has been delivered.
+        if (framePending.compareAndSet(false, true)) {
+            shown.takeFrom(latest);
+            SwingUtilities.invokeLater(deliverFrame);
+        }
+    }
+
+    private void deliverFrame() {
+        try {
+            for (var listener : frameListeners) {
+                listener.onFrame(shown);
+            }
+        } finally {
+            framePending.set(false);
+            var current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    private static <T> T[] add(T[] listeners, T listener) {
+        var added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        return added;
+    }
+
+    private static <T> T[] remove(T[] listeners, T listener) {
+        return Arrays.stream(listeners)
+                .filter(candidate -> candidate != listener)
+                .toArray(length -> Arrays.copyOf(listeners, length));
+    }
+}
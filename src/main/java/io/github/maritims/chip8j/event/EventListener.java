@@ -0,0 +1,13 @@
+package io.github.maritims.chip8j.event;
+
+/**
+ * Receives every event published to an {@link EventBus}, in order, on the thread of the bus.
+ */
+public interface EventListener {
+    /**
+     * @param instruction The instruction count when the event happened, modulo 2^32.
+     * @param endOfBatch  Whether this is the last event available for now, which is a good time to flush anything
+     *                    buffered.
+     */
+    void onEvent(EventType type, int value, long instruction, boolean endOfBatch);
+}
@@ -0,0 +1,44 @@
+package io.github.maritims.chip8j.event;
+
+/**
+ * The latest value of every event type, and which types were published since the previous snapshot.
+ */
+public final class EventSnapshot {
+    private final int[] values = new int[EventType.values().length];
+    private       long  changed;
+
+    EventSnapshot() {
+    }
+
+    /**
+     * @return The value of the latest event of the type, or zero if there was none.
+     */
+    public int get(EventType type) {
+        return values[type.ordinal()];
+    }
+
+    /**
+     * @return Whether an event of the type was published since the previous snapshot.
+     */
+    public boolean hasChanged(EventType type) {
+        return (changed >>> type.ordinal() & 1) != 0;
+    }
+
+    boolean hasChanges() {
+        return changed != 0;
+    }
+
+    void set(EventType type, int value) {
+        values[type.ordinal()] = value;
+        changed |= 1L << type.ordinal();
+    }
+
+    /**
+     * Copies the values and changes of {@code other} into this snapshot, and clears the changes of {@code other}.
+     */
+    void takeFrom(EventSnapshot other) {
+        System.arraycopy(other.values, 0, values, 0, values.length);
+        changed       = other.changed;
+        other.changed = 0;
+    }
+}
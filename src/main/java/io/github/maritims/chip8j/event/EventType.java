@@ -0,0 +1,33 @@
+package io.github.maritims.chip8j.event;
+
+/**
+ * What happened. Every event carries one int, whose meaning depends on the type.
+ */
+public enum EventType {
+    /**
+     * A frame ended. The value is the opcode of the last instruction executed.
+     */
+    FRAME,
+    /**
+     * The CPU started waiting for a key with {@code Fx0A}, with the value 1, or stopped waiting, with the value 0.
+     */
+    KEY_WAIT,
+    /**
+     * The sound timer started running, with the value 1, or ran out, with the value 0.
+     */
+    SOUND,
+    /**
+     * The resolution changed. The value is the columns shifted left by 8 bits, ORed with the rows.
+     */
+    RESOLUTION,
+    /**
+     * The program executed {@code 00FD}. The value is always 1.
+     */
+    EXIT;
+
+    private static final EventType[] VALUES = values();
+
+    static EventType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
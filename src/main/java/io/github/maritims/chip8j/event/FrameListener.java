@@ -0,0 +1,11 @@
+package io.github.maritims.chip8j.event;
+
+/**
+ * Receives the latest value of every event type on the event dispatch thread, at most once per frame.
+ */
+public interface FrameListener {
+    /**
+     * @param snapshot The latest values, which are only valid until this method returns.
+     */
+    void onFrame(EventSnapshot snapshot);
+}
@@ -0,0 +1,24 @@
+package io.github.maritims.chip8j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.github.maritims.chip8j.Frame")
+@Label("Frame")
+@Description("One 60 Hz frame of the scheduler: running the CPU, ticking the timers and rendering")
+@Category("CHIP-8")
+@Enabled(false)
+@StackTrace(false)
+public class FrameEvent extends Event {
+    @Label("Instructions")
+    public int instructions;
+
+    @Label("Instructions per Second")
+    @Description("How fast the CPU executed the instructions of this frame")
+    public long instructionsPerSecond;
+}
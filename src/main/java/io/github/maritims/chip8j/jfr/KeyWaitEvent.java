@@ -0,0 +1,23 @@
+package io.github.maritims.chip8j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.github.maritims.chip8j.KeyWait")
+@Label("Key Wait")
+@Description("The CPU waiting in Fx0A until a key is released")
+@Category("CHIP-8")
+@Enabled(false)
+@StackTrace(false)
+public class KeyWaitEvent extends Event {
+    @Label("Register")
+    public int register;
+
+    @Label("Key")
+    public int key;
+}
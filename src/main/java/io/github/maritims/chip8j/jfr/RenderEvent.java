@@ -0,0 +1,18 @@
+package io.github.maritims.chip8j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.github.maritims.chip8j.Render")
+@Label("Render")
+@Category("CHIP-8")
+@Enabled(false)
+@StackTrace(false)
+public class RenderEvent extends Event {
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,21 @@
+package io.github.maritims.chip8j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.maritims.chip8j.RomLoad")
+@Label("ROM Load")
+@Category("CHIP-8")
+@Enabled(false)
+public class RomLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
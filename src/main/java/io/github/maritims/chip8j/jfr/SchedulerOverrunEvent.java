@@ -0,0 +1,26 @@
+package io.github.maritims.chip8j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("io.github.maritims.chip8j.SchedulerOverrun")
+@Label("Scheduler Overrun")
+@Description("A frame which finished after its deadline")
+@Category("CHIP-8")
+@Enabled(false)
+@StackTrace(false)
+public class SchedulerOverrunEvent extends Event {
+    @Label("Behind")
+    @Timespan
+    public long behind;
+
+    @Label("Dropped Frames")
+    @Description("How many frames were skipped to catch up, or zero if they are run back to back")
+    public long droppedFrames;
+}
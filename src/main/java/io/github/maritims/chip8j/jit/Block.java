@@ -0,0 +1,13 @@
+package io.github.maritims.chip8j.jit;
+
+import io.github.maritims.chip8j.CPU;
+
+/**
+ * A compiled basic block covering the addresses {@code [start, end)}. Running it executes {@code length} instructions
+ * and leaves the CPU exactly as the interpreter would have.
+ */
+public record Block(int start, int end, int length, boolean usesTimers, CompiledBlock code) {
+    public void run(CPU cpu) {
+        code.run(cpu);
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.maritims.chip8j.jit;
+
+import io.github.maritims.chip8j.CPU;
+import io.github.maritims.chip8j.Instruction;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static io.github.maritims.chip8j.Instruction.*;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Translates a sequence of decoded instructions into a hidden class implementing {@link CompiledBlock}. Every
+ * instruction becomes a direct call to its handler on the CPU with constant operands, which C2 inlines and folds. The
+ * hidden class is a nestmate of {@link CPU}, so it can also update the program counter and bookkeeping fields.
+ * <p>
+ * Those fields are only written at the end of the block. Each call is therefore covered by its own exception handler,
+ * which sets them to what the interpreter would have left before rethrowing. The handlers cost nothing unless a call
+ * throws.
+ */
+class BlockCompiler {
+    private static final String CPU_NAME        = Type.getInternalName(CPU.class);
+    private static final String CPU_DESCRIPTOR  = Type.getDescriptor(CPU.class);
+    private static final String BLOCK_INTERFACE = Type.getInternalName(CompiledBlock.class);
+
+    private final MethodHandles.Lookup lookup;
+
+    BlockCompiler(MethodHandles.Lookup lookup) {
+        if (lookup.lookupClass() != CPU.class || (lookup.lookupModes() & MethodHandles.Lookup.PRIVATE) == 0) {
+            throw new IllegalArgumentException("A full privilege lookup on " + CPU.class.getName() + " is required");
+        }
+        this.lookup = lookup;
+    }
+
+    /**
+     * @param start        The address of the first instruction.
+     * @param instructions The decoded instructions, of which the first {@code length} are compiled.
+     * @param terminated   Whether the last instruction transfers control or writes memory, in which case the program
+     *                     counter is set before it runs rather than after the block.
+     */
+    CompiledBlock compile(int start, int[] instructions, int length, boolean terminated) throws Throwable {
+        var className = CPU_NAME.substring(0, CPU_NAME.lastIndexOf('/') + 1) + String.format("Block$%04X", start);
+        var writer    = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object", new String[]{BLOCK_INTERFACE});
+
+        var constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        var run = writer.visitMethod(ACC_PUBLIC, "run", "(" + CPU_DESCRIPTOR + ")V", null, null);
+        run.visitCode();
+        var handlers = new Label[length];
+        for (var i = 0; i < length; i++) {
+            var address = start + i * 2;
+            if (terminated && i == length - 1) {
+                setField(run, "PC", address + 2);
+            }
+
+            var from = new Label();
+            var to   = new Label();
+            run.visitLabel(from);
+            if (emitInstruction(run, instructions[i])) {
+                handlers[i] = new Label();
+                run.visitLabel(to);
+                run.visitTryCatchBlock(from, to, handlers[i], null);
+            }
+        }
+        if (!terminated) {
+            setField(run, "PC", start + length * 2);
+        }
+        setField(run, "opcode", Instruction.opcode(instructions[length - 1]));
+        addInstructionCount(run, length);
+        run.visitInsn(RETURN);
+
+        for (var i = 0; i < length; i++) {
+            if (handlers[i] == null) {
+                continue;
+            }
+
+            // Like cycle(), which has stepped past the instruction and counted it before executing it. A terminating
+            // instruction has its program counter set already, and may have changed it before throwing.
+            run.visitLabel(handlers[i]);
+            run.visitFrame(F_SAME1, 0, null, 1, new Object[]{"java/lang/Throwable"});
+            if (!terminated || i < length - 1) {
+                setField(run, "PC", start + i * 2 + 2);
+            }
+            setField(run, "opcode", Instruction.opcode(instructions[i]));
+            addInstructionCount(run, i + 1);
+            run.visitInsn(ATHROW);
+        }
+        run.visitMaxs(0, 0);
+        run.visitEnd();
+        writer.visitEnd();
+
+        var hidden = lookup.defineHiddenClass(writer.toByteArray(), true, MethodHandles.Lookup.ClassOption.NESTMATE);
+        return (CompiledBlock) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+    }
+
+    /**
+     * @return Whether a call was emitted, which is not the case for unknown opcodes.
+     */
+    private static boolean emitInstruction(MethodVisitor method, int instruction) {
+        var x   = Instruction.x(instruction);
+        var y   = Instruction.y(instruction);
+        var n   = Instruction.n(instruction);
+        var nn  = Instruction.nn(instruction);
+        var nnn = Instruction.nnn(instruction);
+
+        switch (Instruction.handler(instruction)) {
+            case OP_00E0 -> invoke(method, "OP_00E0");
+            case OP_00EE -> invoke(method, "OP_00EE");
+            case OP_1nnn -> invoke(method, "OP_1nnn", nnn);
+            case OP_2nnn -> invoke(method, "OP_2nnn", nnn);
+            case OP_3xnn -> invoke(method, "OP_3xnn", x, nn);
+            case OP_4xnn -> invoke(method, "OP_4xnn", x, nn);
+            case OP_5xy0 -> invoke(method, "OP_5xy0", x, y);
+            case OP_6xnn -> invoke(method, "OP_6xnn", x, nn);
+            case OP_7xnn -> invoke(method, "OP_7xnn", x, nn);
+            case OP_8xy0 -> invoke(method, "OP_8xy0", x, y);
+            case OP_8xy1 -> invoke(method, "OP_8xy1", x, y);
+            case OP_8xy2 -> invoke(method, "OP_8xy2", x, y);
+            case OP_8xy3 -> invoke(method, "OP_8xy3", x, y);
+            case OP_8xy4 -> invoke(method, "OP_8xy4", x, y);
+            case OP_8xy5 -> invoke(method, "OP_8xy5", x, y);
+            case OP_8xy6 -> invoke(method, "OP_8xy6", x, y);
+            case OP_8xy7 -> invoke(method, "OP_8xy7", x, y);
+            case OP_8xyE -> invoke(method, "OP_8xyE", x, y);
+            case OP_9xy0 -> invoke(method, "OP_9xy0", x, y);
+            case OP_Annn -> invoke(method, "OP_Annn", nnn);
+            case OP_Bnnn -> invoke(method, "OP_Bnnn", nnn);
+            case OP_Cxnn -> invoke(method, "OP_Cxnn", x, nn);
+            case OP_Dxyn -> invoke(method, "OP_Dxyn", x, y, n);
+            case OP_Ex9E -> invoke(method, "OP_Ex9E", x);
+            case OP_ExA1 -> invoke(method, "OP_ExA1", x);
+            case OP_Fx07 -> invoke(method, "OP_Fx07", x);
+            case OP_Fx0A -> invoke(method, "OP_Fx0A", x);
+            case OP_Fx15 -> invoke(method, "OP_Fx15", x);
+            case OP_Fx18 -> invoke(method, "OP_Fx18", x);
+            case OP_Fx1E -> invoke(method, "OP_Fx1E", x);
+            case OP_Fx29 -> invoke(method, "OP_Fx29", x);
+            case OP_Fx33 -> invoke(method, "OP_Fx33", x);
+            case OP_Fx55 -> invoke(method, "OP_Fx55", x);
+            case OP_Fx65 -> invoke(method, "OP_Fx65", x);
+            case OP_8xy1_resetVF -> invoke(method, "OP_8xy1_resetVF", x, y);
+            case OP_8xy2_resetVF -> invoke(method, "OP_8xy2_resetVF", x, y);
+            case OP_8xy3_resetVF -> invoke(method, "OP_8xy3_resetVF", x, y);
+            case OP_8xy6_shiftVy -> invoke(method, "OP_8xy6_shiftVy", x, y);
+            case OP_8xyE_shiftVy -> invoke(method, "OP_8xyE_shiftVy", x, y);
+            case OP_Fx55_incrementI -> invoke(method, "OP_Fx55_incrementI", x);
+            case OP_Fx65_incrementI -> invoke(method, "OP_Fx65_incrementI", x);
+            case OP_Fx55_incrementIByX -> invoke(method, "OP_Fx55_incrementIByX", x);
+            case OP_Fx65_incrementIByX -> invoke(method, "OP_Fx65_incrementIByX", x);
+            case OP_Bxnn -> invoke(method, "OP_Bxnn", x, nnn);
+            case OP_00Cn -> invoke(method, "OP_00Cn", n);
+            case OP_00FB -> invoke(method, "OP_00FB");
+            case OP_00FC -> invoke(method, "OP_00FC");
+            case OP_00FD -> invoke(method, "OP_00FD");
+            case OP_00FE -> invoke(method, "OP_00FE");
+            case OP_00FF -> invoke(method, "OP_00FF");
+            case OP_Dxy0 -> invoke(method, "OP_Dxy0", x, y);
+            case OP_Fx30 -> invoke(method, "OP_Fx30", x);
+            case OP_Fx75 -> invoke(method, "OP_Fx75", x);
+            case OP_Fx85 -> invoke(method, "OP_Fx85", x);
+            case OP_00Dn -> invoke(method, "OP_00Dn", n);
+            case OP_5xy2 -> invoke(method, "OP_5xy2", x, y);
+            case OP_5xy3 -> invoke(method, "OP_5xy3", x, y);
+            case OP_F000 -> invoke(method, "OP_F000");
+            case OP_Fn01 -> invoke(method, "OP_Fn01", x);
+            case OP_F002 -> invoke(method, "OP_F002");
+            case OP_Fx3A -> invoke(method, "OP_Fx3A", x);
+            case OP_00E0_planes -> invoke(method, "OP_00E0_planes");
+            case OP_Dxyn_planes -> invoke(method, "OP_Dxyn_planes", x, y, n);
+            case OP_Dxy0_planes -> invoke(method, "OP_Dxy0_planes", x, y);
+            case OP_3xnn_long -> invoke(method, "OP_3xnn_long", x, nn);
+            case OP_4xnn_long -> invoke(method, "OP_4xnn_long", x, nn);
+            case OP_5xy0_long -> invoke(method, "OP_5xy0_long", x, y);
+            case OP_9xy0_long -> invoke(method, "OP_9xy0_long", x, y);
+            case OP_Ex9E_long -> invoke(method, "OP_Ex9E_long", x);
+            case OP_ExA1_long -> invoke(method, "OP_ExA1_long", x);
+            default -> {
+                // Unknown opcodes are no-ops in the interpreter as well.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void invoke(MethodVisitor method, String name, int... operands) {
+        method.visitVarInsn(ALOAD, 1);
+        for (var operand : operands) {
+            pushInt(method, operand);
+        }
+        method.visitMethodInsn(INVOKEVIRTUAL, CPU_NAME, name, "(" + "I".repeat(operands.length) + ")V", false);
+    }
+
+    private static void addInstructionCount(MethodVisitor method, long count) {
+        method.visitVarInsn(ALOAD, 1);
+        method.visitInsn(DUP);
+        method.visitFieldInsn(GETFIELD, CPU_NAME, "instructionCount", "J");
+        method.visitLdcInsn(count);
+        method.visitInsn(LADD);
+        method.visitFieldInsn(PUTFIELD, CPU_NAME, "instructionCount", "J");
+    }
+
+    private static void setField(MethodVisitor method, String name, int value) {
+        method.visitVarInsn(ALOAD, 1);
+        pushInt(method, value);
+        method.visitFieldInsn(PUTFIELD, CPU_NAME, name, "I");
+    }
+
+    private static void pushInt(MethodVisitor method, int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.maritims.chip8j.jit;
+
+import io.github.maritims.chip8j.CPU;
+
+@FunctionalInterface
+public interface CompiledBlock {
+    void run(CPU cpu);
+}
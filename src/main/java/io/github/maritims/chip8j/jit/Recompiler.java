@@ -0,0 +1,148 @@
+package io.github.maritims.chip8j.jit;
+
+import io.github.maritims.chip8j.Instruction;
+import io.github.maritims.chip8j.QuirkProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+
+import static io.github.maritims.chip8j.Instruction.*;
+
+/**
+ * Finds basic blocks in memory and compiles them once their start address has been entered often enough. Blocks end at
+ * jumps, calls, returns, skips, {@code Fx0A}, {@code F000 nnnn} and at instructions writing memory, so a write into the
+ * running block never executes stale code. Blocks overlapping a write are dropped, and start addresses which keep
+ * being rewritten are left to the interpreter for good.
+ */
+public class Recompiler {
+    private static final Logger log = LoggerFactory.getLogger(Recompiler.class);
+
+    static final int COMPILE_THRESHOLD = 8;
+    static final int MAX_BLOCK_LENGTH  = 64;
+    static final int MAX_INVALIDATIONS = 4;
+
+    private static final Block UNCOMPILABLE = new Block(0, 0, 0, false, null);
+
+    private final BlockCompiler compiler;
+    private final byte[]        memory;
+    private final QuirkProfile  quirks;
+    private final Block[]       blocks;
+    private final byte[]        heat;
+    private final byte[]        invalidations;
+    private final int[]         instructions = new int[MAX_BLOCK_LENGTH];
+    private       int           compiledBlocks;
+
+    /**
+     * @param lookup A full privilege lookup on the CPU, which the compiled blocks are defined as nestmates of.
+     * @param memory The memory of the CPU, which is read when compiling and never written.
+     * @param quirks The quirks of the CPU, which decide the handler each instruction is compiled to.
+     */
+    public Recompiler(MethodHandles.Lookup lookup, byte[] memory, QuirkProfile quirks) {
+        this.compiler      = new BlockCompiler(lookup);
+        this.memory        = memory;
+        this.quirks        = quirks;
+        this.blocks        = new Block[memory.length];
+        this.heat          = new byte[memory.length];
+        this.invalidations = new byte[memory.length];
+    }
+
+    public int getCompiledBlocks() {
+        return compiledBlocks;
+    }
+
+    /**
+     * @return The compiled block starting at the address, or null if the address should be interpreted.
+     */
+    public Block blockAt(int address) {
+        var block = blocks[address];
+        if (block == null) {
+            if (heat[address] < COMPILE_THRESHOLD) {
+                heat[address]++;
+                return null;
+            }
+            block = blocks[address] = compile(address);
+        }
+        return block.code() == null ? null : block;
+    }
+
+    /**
+     * Drops every block overlapping the written addresses {@code [from, to)}.
+     */
+    public void invalidate(int from, int to) {
+        if (compiledBlocks == 0) {
+            return;
+        }
+
+        for (var address = Math.max(0, from - MAX_BLOCK_LENGTH * 2); address < Math.min(blocks.length, to); address++) {
+            var block = blocks[address];
+            if (block == null || block.start() >= to || block.end() <= from) {
+                continue;
+            }
+
+            if (block.code() != null) {
+                compiledBlocks--;
+            }
+            blocks[address] = null;
+            heat[address]   = 0;
+            if (invalidations[address] < MAX_INVALIDATIONS) {
+                invalidations[address]++;
+            }
+        }
+    }
+
+    /**
+     * Drops every block without counting it as an invalidation, for when the whole memory is replaced at once.
+     */
+    public void reset() {
+        Arrays.fill(blocks, null);
+        Arrays.fill(heat, (byte) 0);
+        Arrays.fill(invalidations, (byte) 0);
+        compiledBlocks = 0;
+    }
+
+    private Block compile(int start) {
+        if (invalidations[start] >= MAX_INVALIDATIONS) {
+            return UNCOMPILABLE;
+        }
+
+        var length     = 0;
+        var terminated = false;
+        var usesTimers = false;
+        var address    = start;
+        while (length < MAX_BLOCK_LENGTH && address + 1 < memory.length && !terminated) {
+            var instruction = Instruction.decode((memory[address] & 0xFF) << 8 | (memory[address + 1] & 0xFF), quirks);
+            var handler     = Instruction.handler(instruction);
+
+            instructions[length++] = instruction;
+            terminated             = endsBlock(handler);
+            usesTimers            |= handler == OP_Fx07 || handler == OP_Fx15 || handler == OP_Fx18;
+            address               += 2;
+        }
+
+        // A single instruction gains nothing over the interpreter.
+        if (length < 2) {
+            return new Block(start, address, length, usesTimers, null);
+        }
+
+        try {
+            var code = compiler.compile(start, instructions, length, terminated);
+            compiledBlocks++;
+            return new Block(start, address, length, usesTimers, code);
+        } catch (Throwable e) {
+            log.warn("Unable to compile the block at {}, interpreting it instead", String.format("%04X", start), e);
+            return UNCOMPILABLE;
+        }
+    }
+
+    private static boolean endsBlock(int handler) {
+        return switch (handler) {
+            case OP_00EE, OP_00FD, OP_1nnn, OP_2nnn, OP_Bnnn, OP_Bxnn,
+                 OP_3xnn, OP_4xnn, OP_5xy0, OP_9xy0, OP_Ex9E, OP_ExA1,
+                 OP_3xnn_long, OP_4xnn_long, OP_5xy0_long, OP_9xy0_long, OP_Ex9E_long, OP_ExA1_long, OP_F000,
+                 OP_Fx0A, OP_Fx33, OP_Fx55, OP_Fx55_incrementI, OP_Fx55_incrementIByX, OP_5xy2 -> true;
+            default -> false;
+        };
+    }
+}
@@ -1,6 +1,5 @@
 package io.github.maritims.chip8j.keypad;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 public enum HostKey {
@@ -21,6 +20,14 @@ public enum HostKey {
     C((char) 99, KeypadKey.B),
     V((char) 118, KeypadKey.F);
 
+    private static final HostKey[] BY_ASCII_CODE = new HostKey[128];
+
+    static {
+        for (var hostKey : values()) {
+            BY_ASCII_CODE[hostKey.asciiCode] = hostKey;
+        }
+    }
+
     HostKey(char asciiCode, KeypadKey keypadButton) {
         this.asciiCode    = asciiCode;
         this.keypadButton = keypadButton;
@@ -38,8 +45,6 @@ public enum HostKey {
     }
 
     public static Optional<HostKey> fromAsciiCode(char asciiCode) {
-        return Arrays.stream(values())
-                .filter(value -> value.getAsciiCode() == asciiCode)
-                .findFirst();
+        return Optional.ofNullable(asciiCode < BY_ASCII_CODE.length ? BY_ASCII_CODE[asciiCode] : null);
     }
 }
@@ -0,0 +1,28 @@
+package io.github.maritims.chip8j.keypad;
+
+/**
+ * A key being pressed or released once the CPU has executed {@code instruction} instructions. An event without a key
+ * is a timer tick, which a recorded session needs for the frames it spent waiting for a key, since the instruction
+ * count does not advance while the CPU is paused.
+ */
+public record InputEvent(long instruction, KeypadKey key, boolean pressed) {
+    public static InputEvent timerTick(long instruction) {
+        return new InputEvent(instruction, null, false);
+    }
+
+    public boolean isTimerTick() {
+        return key == null;
+    }
+
+    public void applyTo(Keypad keypad) {
+        if (isTimerTick()) {
+            throw new IllegalStateException("A timer tick cannot be applied to a keypad");
+        }
+
+        if (pressed) {
+            keypad.onKeyPressed(key);
+        } else {
+            keypad.onKeyReleased(key);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.maritims.chip8j.keypad;
+
+/**
+ * A bounded queue of key events from one producer thread, such as the EDT, to one consumer thread, such as the thread
+ * running the CPU. Events are packed into ints in a preallocated ring, so neither side allocates or takes a lock. The
+ * producer publishes an event by writing its slot before the volatile tail, and the consumer frees it by writing the
+ * volatile head once it has read it.
+ */
+public class KeyEventQueue {
+    public static final int EMPTY = -1;
+
+    private static final int PRESSED = 0x10;
+
+    private final    int[] events;
+    private final    int   mask;
+    private volatile long  head;
+    private volatile long  tail;
+
+    /**
+     * @param capacity A power of two.
+     */
+    public KeyEventQueue(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, but was " + capacity);
+        }
+
+        this.events = new int[capacity];
+        this.mask   = capacity - 1;
+    }
+
+    /**
+     * Must only be called by the producer.
+     *
+     * @return False if the queue is full, in which case the event is not added.
+     */
+    public boolean offer(KeypadKey key, boolean pressed) {
+        var t = tail;
+        if (t - head == events.length) {
+            return false;
+        }
+
+        events[(int) t & mask] = key.getCosmacVipKeyCode() | (pressed ? PRESSED : 0);
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Must only be called by the consumer.
+     *
+     * @return The next event, which is read with {@link #key(int)} and {@link #isPressed(int)}, or {@link #EMPTY}.
+     */
+    public int poll() {
+        var h = head;
+        if (h == tail) {
+            return EMPTY;
+        }
+
+        var event = events[(int) h & mask];
+        head = h + 1;
+        return event;
+    }
+
+    /**
+     * Drops every event queued so far. Must only be called by the consumer.
+     */
+    public void clear() {
+        head = tail;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public static KeypadKey key(int event) {
+        return KeypadKey.byCosmacVipKeyCode(event & 0xF);
+    }
+
+    public static boolean isPressed(int event) {
+        return (event & PRESSED) != 0;
+    }
+}
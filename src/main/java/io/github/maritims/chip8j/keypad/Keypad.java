@@ -3,38 +3,52 @@ package io.github.maritims.chip8j.keypad;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
+/**
+ * The state of the 16 keys, held as a mask with bit {@code n} set while the key with the COSMAC VIP key code {@code n}
+ * is pressed. Any thread may read it, and reading a key is a single volatile load.
+ */
 public class Keypad {
     private static final Logger log = LoggerFactory.getLogger(Keypad.class);
 
-    private final Map<KeypadKey, Boolean> keys = Arrays.stream(KeypadKey.values()).collect(Collectors.toMap(keypadKey -> keypadKey, keypadKey -> false));
-    private       Consumer<KeypadKey>     onNextKeyReleased;
+    private final AtomicInteger                        pressedKeys       = new AtomicInteger();
+    private final AtomicReference<Consumer<KeypadKey>> onNextKeyReleased = new AtomicReference<>();
 
     public boolean isKeyPressed(int cosmacVipKeyCode) {
-        return KeypadKey.fromCosmacVipKeyCode(cosmacVipKeyCode)
-                .map(keys::get)
-                .orElse(false);
+        return (cosmacVipKeyCode & ~0xF) == 0 && (pressedKeys.get() & 1 << cosmacVipKeyCode) != 0;
+    }
+
+    /**
+     * @return A mask with bit {@code n} set if the key with the COSMAC VIP key code {@code n} is pressed.
+     */
+    public int getPressedKeys() {
+        return pressedKeys.get();
+    }
+
+    public void setPressedKeys(int mask) {
+        pressedKeys.set(mask & 0xFFFF);
     }
 
     public void onKeyPressed(KeypadKey pressedKey) {
-        keys.put(pressedKey, true);
+        pressedKeys.getAndAccumulate(1 << pressedKey.getCosmacVipKeyCode(), (mask, bit) -> mask | bit);
     }
 
     public void onKeyReleased(KeypadKey releasedKey) {
-        keys.put(releasedKey, false);
-        if(onNextKeyReleased != null) {
-            log.info("Triggering event handler for {}", releasedKey);
-            onNextKeyReleased.accept(releasedKey);
-            onNextKeyReleased = null;
+        pressedKeys.getAndAccumulate(1 << releasedKey.getCosmacVipKeyCode(), (mask, bit) -> mask & ~bit);
+
+        // Taking the handler out before calling it makes sure it runs at most once, whichever thread replaced it.
+        var handler = onNextKeyReleased.getAndSet(null);
+        if (handler != null) {
+            log.debug("Triggering event handler for {}", releasedKey);
+            handler.accept(releasedKey);
         }
     }
 
     public void onNextKeyReleased(Consumer<KeypadKey> onNextKeyReleased) {
-        log.info("Setting event handler");
-        this.onNextKeyReleased = onNextKeyReleased;
+        log.debug("Setting event handler");
+        this.onNextKeyReleased.set(onNextKeyReleased);
     }
 }
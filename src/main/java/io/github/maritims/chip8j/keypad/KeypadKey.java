@@ -1,6 +1,5 @@
 package io.github.maritims.chip8j.keypad;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 public enum KeypadKey {
@@ -24,6 +23,14 @@ public enum KeypadKey {
     B(0xB),
     F(0xF);
 
+    private static final KeypadKey[] BY_COSMAC_VIP_KEY_CODE = new KeypadKey[16];
+
+    static {
+        for (var keypadKey : values()) {
+            BY_COSMAC_VIP_KEY_CODE[keypadKey.cosmacVipKeyCode] = keypadKey;
+        }
+    }
+
     KeypadKey(int cosmacVipKeyCode) {
         this.cosmacVipKeyCode = cosmacVipKeyCode;
     }
@@ -35,8 +42,13 @@ public enum KeypadKey {
     }
 
     public static Optional<KeypadKey> fromCosmacVipKeyCode(int cosmacVipKeyCode) {
-        return Arrays.stream(values())
-                .filter(keypadKey -> keypadKey.getCosmacVipKeyCode() == cosmacVipKeyCode)
-                .findFirst();
+        return Optional.ofNullable(byCosmacVipKeyCode(cosmacVipKeyCode));
+    }
+
+    static KeypadKey byCosmacVipKeyCode(int cosmacVipKeyCode) {
+        if (cosmacVipKeyCode < 0 || cosmacVipKeyCode >= BY_COSMAC_VIP_KEY_CODE.length) {
+            return null;
+        }
+        return BY_COSMAC_VIP_KEY_CODE[cosmacVipKeyCode];
     }
 }
@@ -0,0 +1,33 @@
+package io.github.maritims.chip8j.library;
+
+import io.github.maritims.chip8j.QuirkProfile;
+
+import java.nio.file.Path;
+
+/**
+ * A ROM in a {@link RomLibrary}.
+ *
+ * @param path         The absolute path of the ROM.
+ * @param lastModified The modification time of the file in milliseconds, which tells whether it must be hashed again.
+ * @param sha1         The hexadecimal SHA-1 of the ROM, which is what most ROM databases are keyed by.
+ * @param sha256       The hexadecimal SHA-256 of the ROM, which is what {@link io.github.maritims.chip8j.InputLog} and
+ *                     {@link io.github.maritims.chip8j.analysis.AnalysisCache} are keyed by.
+ */
+public record RomEntry(
+        Path path,
+        long size,
+        long lastModified,
+        String sha1,
+        String sha256,
+        RomVariant variant,
+        QuirkProfile quirks
+) {
+    /**
+     * @return The file name without its extension.
+     */
+    public String name() {
+        var fileName = path.getFileName().toString();
+        var dot      = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.maritims.chip8j.library;
+
+import io.github.maritims.chip8j.QuirkProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * An index of every ROM below a directory, kept in a tab separated file so that opening a large library only has to
+ * look at the modification times of its files. ROMs which are new or changed since the index was written are hashed
+ * and classified again, and {@link #watch()} keeps the index current while the emulator runs.
+ * <p>
+ * The bytes of a ROM are only read when it is loaded, through a read-only memory mapping. Mappings are shared by
+ * SHA-256 between every library in the JVM, so identical ROMs are mapped once however many copies there are.
+ */
+public final class RomLibrary implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(RomLibrary.class);
+
+    static final String HEADER     = "# chip8j rom index 1";
+    static final int    MAX_LENGTH = 0x10000 - 0x200;
+
+    private static final ConcurrentHashMap<String, WeakReference<ByteBuffer>> images = new ConcurrentHashMap<>();
+
+    private final    Path                              root;
+    private final    Path                              indexFile;
+    private final    ConcurrentHashMap<Path, RomEntry> entries = new ConcurrentHashMap<>();
+    private final    ConcurrentHashMap<WatchKey, Path> watched = new ConcurrentHashMap<>();
+    private          WatchService                      watchService;
+    private volatile boolean                           changed;
+
+    /**
+     * @param indexFile Where the index is kept between runs.
+     */
+    public RomLibrary(Path root, Path indexFile) {
+        this.root      = root.toAbsolutePath().normalize();
+        this.indexFile = indexFile;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Reads the index and brings it up to date with the directory. Only ROMs whose size or modification time differs
+     * from the index are read.
+     */
+    public RomLibrary open() throws IOException {
+        readIndex();
+
+        var seen = new HashSet<Path>();
+        refreshAll(root, seen);
+        entries.keySet().retainAll(seen);
+
+        writeIndex();
+        log.info("Indexed {} ROMs in {}", entries.size(), root);
+        return this;
+    }
+
+    /**
+     * @return Every ROM in the library, ordered by path.
+     */
+    public List<RomEntry> getEntries() {
+        return entries.values().stream().sorted(Comparator.comparing(RomEntry::path)).toList();
+    }
+
+    /**
+     * @return The entry for the ROM at {@code path}, indexing it first if it is new, changed or outside the library.
+     */
+    public RomEntry getEntry(Path path) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        var entry = refresh(path);
+        return entry != null ? entry : index(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * @return A read-only view of the ROM, mapped into memory the first time any library loads a ROM with the same
+     * SHA-256.
+     */
+    public ByteBuffer map(RomEntry entry) throws IOException {
+        while (true) {
+            var reference = images.get(entry.sha256());
+            var image     = reference == null ? null : reference.get();
+            if (image != null) {
+                return image.asReadOnlyBuffer();
+            }
+
+            try (var channel = FileChannel.open(entry.path())) {
+                image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (!sha256(image).equals(entry.sha256())) {
+                throw new IOException(entry.path() + " changed since it was indexed");
+            }
+            // Another thread may have mapped the same ROM meanwhile, in which case its mapping is used instead.
+            var shared = reference == null
+                    ? images.putIfAbsent(entry.sha256(), new WeakReference<>(image)) == null
+                    : images.replace(entry.sha256(), reference, new WeakReference<>(image));
+            if (shared) {
+                return image.asReadOnlyBuffer();
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the bytes of the ROM.
+     */
+    public byte[] read(RomEntry entry) throws IOException {
+        var image = map(entry);
+        var bytes = new byte[image.remaining()];
+        image.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Starts a daemon thread which updates the index as ROMs are added, changed or removed anywhere below the root.
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("The library is already being watched");
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        register(watchService, root);
+
+        var thread = new Thread(this::processEvents, "chip8j-rom-library");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void register(WatchService service, Path directory) throws IOException {
+        try (var directories = Files.walk(directory)) {
+            for (var path : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                watched.put(path.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), path);
+            }
+        }
+    }
+
+    private void processEvents() {
+        var service = watchService;
+        try {
+            while (true) {
+                var key       = service.take();
+                var directory = watched.get(key);
+                for (var event : key.pollEvents()) {
+                    try {
+                        if (event.kind() == OVERFLOW) {
+                            open();
+                            continue;
+                        }
+
+                        var path = directory.resolve((Path) event.context());
+                        if (event.kind() == ENTRY_DELETE) {
+                            changed |= entries.keySet().removeIf(entry -> entry.startsWith(path));
+                        } else if (Files.isDirectory(path)) {
+                            register(service, path);
+                            refreshAll(path, new HashSet<>());
+                        } else if (isRomFile(path)) {
+                            refresh(path);
+                        }
+                    } catch (IOException e) {
+                        log.warn("Failed to update the index for {}", event.context(), e);
+                    }
+                }
+
+                if (!key.reset()) {
+                    watched.remove(key);
+                }
+                if (changed) {
+                    writeIndex();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching {}", root);
+        } catch (IOException e) {
+            log.error("Failed to write the index {}", indexFile, e);
+        }
+    }
+
+    /**
+     * Refreshes every ROM below {@code directory}, adding their paths to {@code seen}. ROMs which cannot be read are
+     * left out of the index.
+     */
+    private void refreshAll(Path directory, HashSet<Path> seen) throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var path : (Iterable<Path>) files.filter(RomLibrary::isRomFile)::iterator) {
+                try {
+                    refresh(path);
+                    seen.add(path);
+                } catch (IOException e) {
+                    log.warn("Leaving {} out of the index", path, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the ROM again if it is not in the index or has changed since it was indexed.
+     *
+     * @return The entry, or null if the path is outside the library.
+     */
+    private RomEntry refresh(Path path) throws IOException {
+        if (!path.startsWith(root)) {
+            return null;
+        }
+
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var entry      = entries.get(path);
+        if (entry == null || entry.size() != attributes.size() || entry.lastModified() != attributes.lastModifiedTime().toMillis()) {
+            if (entry != null) {
+                // A mapping of a file changed in place shows the new bytes, so it no longer matches its hash.
+                images.remove(entry.sha256());
+            }
+            entry = index(path, attributes);
+            entries.put(path, entry);
+            changed = true;
+        }
+        return entry;
+    }
+
+    private static RomEntry index(Path path, BasicFileAttributes attributes) throws IOException {
+        if (attributes.size() > MAX_LENGTH) {
+            throw new IOException(path + " is " + attributes.size() + " bytes, but ROMs are at most " + MAX_LENGTH + " bytes");
+        }
+
+        var program = Files.readAllBytes(path);
+        var variant = RomVariant.detect(path.getFileName().toString(), program);
+        return new RomEntry(
+                path,
+                program.length,
+                attributes.lastModifiedTime().toMillis(),
+                digest("SHA-1", ByteBuffer.wrap(program)),
+                digest("SHA-256", ByteBuffer.wrap(program)),
+                variant,
+                variant.getQuirkProfile());
+    }
+
+    private void readIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+
+        try (var lines = Files.lines(indexFile)) {
+            var iterator = lines.iterator();
+            if (!iterator.hasNext() || !iterator.next().equals(HEADER)) {
+                log.warn("Rebuilding the index, since {} is not a ROM index", indexFile);
+                return;
+            }
+
+            while (iterator.hasNext()) {
+                var fields = iterator.next().split("\t");
+                try {
+                    var path = root.resolve(fields[6]).normalize();
+                    entries.put(path, new RomEntry(
+                            path,
+                            Long.parseLong(fields[0]),
+                            Long.parseLong(fields[1]),
+                            fields[2],
+                            fields[3],
+                            RomVariant.valueOf(fields[4]),
+                            QuirkProfile.valueOf(fields[5])));
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    log.warn("Ignoring the malformed line {} in {}", String.join("\t", fields), indexFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the index to a temporary file and moves it into place, so a crash never leaves half an index behind.
+     */
+    private synchronized void writeIndex() throws IOException {
+        changed = false;
+        var directory = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        var temporary = Files.createTempFile(directory, "index", ".tmp");
+        try {
+            var lines = Stream.concat(Stream.of(HEADER), getEntries().stream().map(entry -> String.join("\t",
+                    Long.toString(entry.size()),
+                    Long.toString(entry.lastModified()),
+                    entry.sha1(),
+                    entry.sha256(),
+                    entry.variant().name(),
+                    entry.quirks().name(),
+                    root.relativize(entry.path()).toString())));
+            Files.write(temporary, (Iterable<String>) lines::iterator);
+            Files.move(temporary, indexFile, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static boolean isRomFile(Path path) {
+        return RomVariant.isRom(path.getFileName().toString()) && Files.isRegularFile(path);
+    }
+
+    private static String sha256(ByteBuffer image) {
+        return digest("SHA-256", image.duplicate());
+    }
+
+    private static String digest(String algorithm, ByteBuffer bytes) {
+        try {
+            var digest = MessageDigest.getInstance(algorithm);
+            digest.update(bytes);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
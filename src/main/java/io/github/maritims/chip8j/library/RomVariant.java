@@ -0,0 +1,65 @@
+package io.github.maritims.chip8j.library;
+
+import io.github.maritims.chip8j.Instruction;
+import io.github.maritims.chip8j.QuirkProfile;
+import io.github.maritims.chip8j.analysis.RomAnalyzer;
+
+import static io.github.maritims.chip8j.Instruction.*;
+
+/**
+ * The platform a ROM was written for.
+ */
+public enum RomVariant {
+    CHIP_8(QuirkProfile.MODERN),
+    SUPER_CHIP(QuirkProfile.SUPER_CHIP),
+    XO_CHIP(QuirkProfile.XO_CHIP);
+
+    private final QuirkProfile quirks;
+
+    RomVariant(QuirkProfile quirks) {
+        this.quirks = quirks;
+    }
+
+    /**
+     * @return The quirk profile ROMs for this platform are most likely to run correctly with.
+     */
+    public QuirkProfile getQuirkProfile() {
+        return quirks;
+    }
+
+    public static boolean isRom(String fileName) {
+        var name = fileName.toLowerCase();
+        return name.endsWith(".ch8") || name.endsWith(".c8") || name.endsWith(".sc8") || name.endsWith(".xo8");
+    }
+
+    /**
+     * Detects the platform from the extension if it names one, and otherwise from the instructions the ROM can reach.
+     * Data which happens to look like an extended instruction is not reachable, so it does not count.
+     */
+    public static RomVariant detect(String fileName, byte[] program) {
+        var name = fileName.toLowerCase();
+        if (name.endsWith(".xo8") || program.length > 0x1000 - RomAnalyzer.PROGRAM_START) {
+            return XO_CHIP;
+        }
+        if (name.endsWith(".sc8")) {
+            return SUPER_CHIP;
+        }
+
+        var variant = CHIP_8;
+        for (var range : RomAnalyzer.analyze(program, QuirkProfile.XO_CHIP).code()) {
+            var address = range.start();
+            while (address < range.end() - 1) {
+                var offset = address - RomAnalyzer.PROGRAM_START;
+                var opcode = (program[offset] & 0xFF) << 8 | (program[offset + 1] & 0xFF);
+                switch (Instruction.handler(Instruction.decode(opcode))) {
+                    case OP_00Dn, OP_5xy2, OP_5xy3, OP_F000, OP_Fn01, OP_F002, OP_Fx3A -> {
+                        return XO_CHIP;
+                    }
+                    case OP_00Cn, OP_00FB, OP_00FC, OP_00FD, OP_00FE, OP_00FF, OP_Dxy0, OP_Fx30, OP_Fx75, OP_Fx85 -> variant = SUPER_CHIP;
+                }
+                address += opcode == 0xF000 ? 4 : 2;
+            }
+        }
+        return variant;
+    }
+}
@@ -0,0 +1,297 @@
+package io.github.maritims.chip8j.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters for one emulator, or for many summed up with {@link #add(EmulatorMetrics, long)}. They are only written by the thread running it, except for the renders, which are written
+ * by the thread drawing the frames. Every counter therefore has a single writer, and recording is a plain volatile
+ * store without locks or allocation. Any thread, such as a JMX client, may read them.
+ */
+public class EmulatorMetrics implements EmulatorMetricsMXBean, AutoCloseable {
+    public static final String DOMAIN = "io.github.maritims.chip8j";
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final    ObjectName      objectName;
+    private final    AtomicLongArray renderTimes = new AtomicLongArray(Long.SIZE);
+    private volatile long            instructions;
+    private volatile double          instructionsPerSecond;
+    private volatile long            skippedInstructions;
+    private volatile long            frames;
+    private volatile long            framesRendered;
+    private volatile long            framesDropped;
+    private volatile double          framesPerSecond;
+    private volatile long            timerDrift;
+    private volatile long            maxTimerDrift;
+    private volatile long            keyWaits;
+    private volatile long            keyWaitTime;
+    private volatile long            keyWakeLatency;
+    private volatile long            maxKeyWakeLatency;
+
+    // Only touched by the writer.
+    private long windowStart;
+    private long windowInstructions;
+    private long windowFramesRendered;
+    private long keyWaitStart;
+
+    public EmulatorMetrics() {
+        try {
+            objectName = new ObjectName(DOMAIN + ":type=Emulator,name=" + NEXT_ID.getAndIncrement());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server until {@link #close()} is called.
+     */
+    public EmulatorMetrics register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + objectName, e);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister " + objectName, e);
+        }
+    }
+
+    /**
+     * Records the start of a frame, which is also when its timers tick.
+     *
+     * @param drift How late the frame started compared to its deadline.
+     */
+    public void recordTimerTick(long drift) {
+        timerDrift = drift;
+        if (drift > maxTimerDrift) {
+            maxTimerDrift = drift;
+        }
+    }
+
+    /**
+     * Records the end of a frame. Once a second, the rates are recomputed from the counts since the previous second.
+     *
+     * @param instructionCount    The total number of instructions executed so far.
+     * @param skippedInstructions How many of them were skipped idle loop passes.
+     */
+    public void recordFrame(long instructionCount, long skippedInstructions, long nanoTime) {
+        recordFrames(1, instructionCount, skippedInstructions, nanoTime);
+    }
+
+    /**
+     * Same as {@link #recordFrame(long, long, long)}, but for {@code count} frames run back to back, as a headless run
+     * does.
+     */
+    public void recordFrames(long count, long instructionCount, long skippedInstructions, long nanoTime) {
+        this.instructions        = instructionCount;
+        this.skippedInstructions = skippedInstructions;
+        frames += count;
+        updateRates(nanoTime);
+    }
+
+    /**
+     * Adds the counts of another emulator, such as a finished batch job, to these metrics. Unlike the other recording
+     * methods, any number of threads may call this, so one registered instance can sum up many short-lived emulators.
+     * It must not be mixed with the other recording methods on the same instance.
+     */
+    public synchronized void add(EmulatorMetrics other, long nanoTime) {
+        instructions        += other.instructions;
+        skippedInstructions += other.skippedInstructions;
+        frames              += other.frames;
+        framesRendered      += other.framesRendered;
+        framesDropped       += other.framesDropped;
+        keyWaits            += other.keyWaits;
+        keyWaitTime         += other.keyWaitTime;
+        maxTimerDrift        = Math.max(maxTimerDrift, other.maxTimerDrift);
+        maxKeyWakeLatency    = Math.max(maxKeyWakeLatency, other.maxKeyWakeLatency);
+        for (var i = 0; i < renderTimes.length(); i++) {
+            renderTimes.addAndGet(i, other.renderTimes.get(i));
+        }
+        updateRates(nanoTime);
+    }
+
+    private void updateRates(long nanoTime) {
+        var instructionCount = instructions;
+        if (windowStart == 0) {
+            windowStart          = nanoTime;
+            windowInstructions   = instructionCount;
+            windowFramesRendered = framesRendered;
+            return;
+        }
+
+        var elapsed = nanoTime - windowStart;
+        if (elapsed >= 1_000_000_000L) {
+            instructionsPerSecond = (instructionCount - windowInstructions) * 1e9 / elapsed;
+            framesPerSecond       = (framesRendered - windowFramesRendered) * 1e9 / elapsed;
+            windowStart           = nanoTime;
+            windowInstructions    = instructionCount;
+            windowFramesRendered  = framesRendered;
+        }
+    }
+
+    /**
+     * Records a frame drawn on screen. Called by the thread drawing the frames only.
+     *
+     * @param nanos How long the frame took to draw and show.
+     */
+    public void recordRender(long nanos) {
+        framesRendered++;
+        renderTimes.incrementAndGet(bucket(nanos));
+    }
+
+    public void recordDroppedFrames(long count) {
+        framesDropped += count;
+    }
+
+    /**
+     * Records whether the CPU is waiting for a key at {@code nanoTime}. A wait is counted once the CPU is seen running
+     * again, so its time is only as precise as the calls.
+     */
+    public void recordKeyWait(boolean isPaused, long nanoTime) {
+        if (isPaused && keyWaitStart == 0) {
+            keyWaitStart = nanoTime;
+        } else if (!isPaused && keyWaitStart != 0) {
+            keyWaits++;
+            keyWaitTime += nanoTime - keyWaitStart;
+            keyWaitStart = 0;
+        }
+    }
+
+    /**
+     * @param nanos The time from a key event being submitted until the CPU resumed because of it, which includes the
+     *              wait for the next frame unless the scheduler was parked.
+     */
+    public void recordKeyWakeLatency(long nanos) {
+        keyWakeLatency = nanos;
+        if (nanos > maxKeyWakeLatency) {
+            maxKeyWakeLatency = nanos;
+        }
+    }
+
+    @Override
+    public long getInstructions() {
+        return instructions;
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        return instructionsPerSecond;
+    }
+
+    @Override
+    public long getSkippedInstructions() {
+        return skippedInstructions;
+    }
+
+    @Override
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    @Override
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    @Override
+    public long[] getRenderTimeHistogram() {
+        var histogram = new long[renderTimes.length()];
+        for (var i = 0; i < histogram.length; i++) {
+            histogram[i] = renderTimes.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getRenderTimeMedian() {
+        return renderTimePercentile(0.5);
+    }
+
+    @Override
+    public long getRenderTime99thPercentile() {
+        return renderTimePercentile(0.99);
+    }
+
+    @Override
+    public long getTimerDrift() {
+        return timerDrift;
+    }
+
+    @Override
+    public long getMaxTimerDrift() {
+        return maxTimerDrift;
+    }
+
+    @Override
+    public long getKeyWaits() {
+        return keyWaits;
+    }
+
+    @Override
+    public long getKeyWaitTime() {
+        return keyWaitTime;
+    }
+
+    @Override
+    public long getKeyWakeLatency() {
+        return keyWakeLatency;
+    }
+
+    @Override
+    public long getMaxKeyWakeLatency() {
+        return maxKeyWakeLatency;
+    }
+
+    private long renderTimePercentile(double percentile) {
+        var histogram = getRenderTimeHistogram();
+        var total     = 0L;
+        for (var count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        var rank = (long) Math.ceil(total * percentile);
+        var seen = 0L;
+        for (var i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    }
+}
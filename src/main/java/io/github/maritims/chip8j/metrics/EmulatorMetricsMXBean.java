@@ -0,0 +1,60 @@
+package io.github.maritims.chip8j.metrics;
+
+/**
+ * The metrics of one running emulator, registered under {@code io.github.maritims.chip8j:type=Emulator,name=<n>}.
+ * Rates are measured over the last whole second and times are in nanoseconds.
+ */
+public interface EmulatorMetricsMXBean {
+    long getInstructions();
+
+    double getInstructionsPerSecond();
+
+    /**
+     * @return How many of the instructions were fast-forwarded through as part of a loop waiting for the delay timer.
+     */
+    long getSkippedInstructions();
+
+    long getFrames();
+
+    /**
+     * @return How many frames were drawn on screen. A frame the display did not get to before the next one was
+     * published is not drawn, so this can be less than {@link #getFrames()}.
+     */
+    long getFramesRendered();
+
+    long getFramesDropped();
+
+    double getFramesPerSecond();
+
+    /**
+     * @return The number of renders per power of two, where bucket {@code n} counts renders which took at least
+     * {@code 2^n} and less than {@code 2^(n+1)} nanoseconds.
+     */
+    long[] getRenderTimeHistogram();
+
+    /**
+     * @return The upper bound of the histogram bucket holding the median render.
+     */
+    long getRenderTimeMedian();
+
+    long getRenderTime99thPercentile();
+
+    /**
+     * @return How late the latest timer tick started compared to its deadline.
+     */
+    long getTimerDrift();
+
+    long getMaxTimerDrift();
+
+    long getKeyWaits();
+
+    long getKeyWaitTime();
+
+    /**
+     * @return The time from the latest key event which ended a key wait until the CPU resumed. This is microseconds
+     * if the scheduler was parked, and up to a frame if a timer was still running.
+     */
+    long getKeyWakeLatency();
+
+    long getMaxKeyWakeLatency();
+}
@@ -1,12 +1,12 @@
 package io.github.maritims.chip8j.swing;
 
-import io.github.maritims.chip8j.CPU;
-import io.github.maritims.chip8j.util.Observable;
-import io.github.maritims.chip8j.util.Observer;
+import io.github.maritims.chip8j.event.EventSnapshot;
+import io.github.maritims.chip8j.event.EventType;
+import io.github.maritims.chip8j.event.FrameListener;
 
 import javax.swing.*;
 
-public class StatusPanel extends JPanel implements Observer {
+public class StatusPanel extends JPanel implements FrameListener {
     private final JLabel messageLabel;
 
     public StatusPanel() {
@@ -22,11 +22,10 @@ public class StatusPanel extends JPanel implements Observer {
     }
 
     @Override
-    public void update(Observable observable) {
-        var cpu = (CPU) observable;
+    public void onFrame(EventSnapshot snapshot) {
         setMessageLabel(
-                "Status: " + String.format("%04X", cpu.getOpcode()) + " - " +
-                "Paused: " + cpu.isPaused()
+                "Status: " + String.format("%04X", snapshot.get(EventType.FRAME)) + " - " +
+                "Paused: " + (snapshot.get(EventType.KEY_WAIT) != 0)
         );
     }
 }
@@ -1,5 +1,7 @@
 package io.github.maritims.chip8j.swing.menu;
 
+import io.github.maritims.chip8j.library.RomVariant;
+
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import java.awt.*;
@@ -9,11 +11,16 @@ import java.nio.file.Path;
 import java.util.function.Consumer;
 
 public class LoadRomItem extends JMenuItem {
+    private final Path           directory;
     private final Consumer<Path> onFileChosen;
 
-    public LoadRomItem(String text, Consumer<Path> onFileChosen) {
+    /**
+     * @param directory Where the file chooser opens.
+     */
+    public LoadRomItem(String text, Path directory, Consumer<Path> onFileChosen) {
         super(text);
 
+        this.directory    = directory;
         this.onFileChosen = onFileChosen;
 
         addActionListener(this::onAction);
@@ -22,17 +29,16 @@ public class LoadRomItem extends JMenuItem {
     }
 
     private void onAction(ActionEvent e) {
-        //var fileChooser = new JFileChooser("/home/martin/IdeaProjects/chip8j/src/main/resources");
-        var fileChooser = new JFileChooser("C:\\users\\marit\\IdeaProjects\\chip8j\\src\\main\\resources");
+        var fileChooser = new JFileChooser(directory.toFile());
         fileChooser.addChoosableFileFilter(new FileFilter() {
             @Override
             public boolean accept(File f) {
-                return f.getName().endsWith(".ch8");
+                return f.isDirectory() || RomVariant.isRom(f.getName());
             }
 
             @Override
             public String getDescription() {
-                return "Chip-8 programs";
+                return "CHIP-8, SUPER-CHIP and XO-CHIP programs";
             }
         });
         var result = fileChooser.showOpenDialog(this);
@@ -1,6 +0,0 @@
-package io.github.maritims.chip8j.util;
-
-@FunctionalInterface
-public interface FunctionPointer {
-    void run();
-}
@@ -1,5 +0,0 @@
-package io.github.maritims.chip8j.util;
-
-public interface Observer {
-    void update(Observable observable);
-}
@@ -0,0 +1,32 @@
+package io.github.maritims.chip8j.util;
+
+/**
+ * The SplitMix64 generator. Unlike {@link java.util.SplittableRandom}, its whole state is a single long which can be
+ * read and restored, so a snapshot of a machine can continue with exactly the same random numbers.
+ */
+public class SplitMix64 {
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        var z = state += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int nextByte() {
+        return (int) (nextLong() >>> 56);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AddressWrapTest {
+    @Test
+    void wrapsStoresLoadsAndIncrementsOfIAroundTheEndOfMemory() {
+        var cpu = run(Programs.of(
+                0xAFFE, // 200: I = 0xFFE
+                0x6001, // 202: V0 = 1
+                0x6102, // 204: V1 = 2
+                0x6203, // 206: V2 = 3
+                0x6304, // 208: V3 = 4
+                0xF355, // 20A: store V0-V3 at 0xFFE, 0xFFF, 0x000 and 0x001
+                0x6000, // 20C: V0 = 0
+                0x6100, // 20E: V1 = 0
+                0x6200, // 210: V2 = 0
+                0x6300, // 212: V3 = 0
+                0xF365, // 214: load them back
+                0x6504, // 216: V5 = 4
+                0xF51E, // 218: I += V5
+                0x121A  // 21A: halt
+        ));
+
+        assertThat(new int[]{cpu.getV(0), cpu.getV(1), cpu.getV(2), cpu.getV(3)}).containsExactly(1, 2, 3, 4);
+        assertThat(cpu.getI()).isEqualTo(2);
+    }
+
+    @Test
+    void executesAnInstructionStartingAtTheLastByteOfMemory() {
+        var cpu = run(Programs.of(
+                0x6012, // 200: V0 = 0x12
+                0x610A, // 202: V1 = 0x0A
+                0xAFFF, // 204: I = 0xFFF
+                0xF155, // 206: write 0x120A across the end of memory
+                0x1FFF, // 208: jump to it
+                0x6201, // 20A: V2 = 1
+                0x120C  // 20C: halt
+        ));
+
+        assertThat(cpu.getV(2)).isEqualTo(1);
+        assertThat(cpu.getPC()).isEqualTo(0x20C);
+    }
+
+    private static CPU run(byte[] program) {
+        var cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(program);
+        for (var i = 0; i < 32; i++) {
+            cpu.cycle();
+        }
+        return cpu;
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CpuAllocationTest {
+    private static final int INSTRUCTIONS_PER_FRAME = 11;
+    private static final int INSTRUCTIONS           = 200_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SPACEINVADERS.ch8", "BLITZ.ch8", "3-corax+.ch8", "test_opcode.ch8"})
+    void runsWithoutAllocating(String rom) {
+        var keypad = new Keypad();
+        var cpu    = new CPU(64, 32, keypad, 0)
+                .loadProgram(Programs.load(rom))
+                .setInstructionsPerFrame(INSTRUCTIONS_PER_FRAME);
+        for (var warmUp = 0; warmUp < 20; warmUp++) {
+            run(cpu, keypad);
+        }
+
+        assertThat(Programs.leastAllocated(5, () -> run(cpu, keypad))).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SPACEINVADERS.ch8", "3-corax+.ch8", "test_opcode.ch8"})
+    void cyclesWithoutAllocating(String rom) {
+        var cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(Programs.load(rom));
+        for (var warmUp = 0; warmUp < 20; warmUp++) {
+            cycle(cpu);
+        }
+
+        assertThat(Programs.leastAllocated(5, () -> cycle(cpu))).isZero();
+    }
+
+    @Test
+    void waitsForKeysWithoutAllocating() {
+        var keypad = new Keypad();
+        var cpu    = new CPU(64, 32, keypad, 0).loadProgram(Programs.of(
+                0xF00A, // 200: wait for a key
+                0x1200  // 202: and again
+        ));
+        Runnable waits = () -> {
+            for (var i = 0; i < 10_000; i++) {
+                cpu.run(2);
+                keypad.onKeyPressed(KeypadKey.A);
+                keypad.onKeyReleased(KeypadKey.A);
+            }
+        };
+        for (var warmUp = 0; warmUp < 20; warmUp++) {
+            waits.run();
+        }
+
+        assertThat(cpu.getV(0)).isEqualTo(0xA);
+        assertThat(Programs.leastAllocated(5, waits)).isZero();
+    }
+
+    private static void cycle(CPU cpu) {
+        for (var i = 0; i < INSTRUCTIONS; i++) {
+            cpu.cycle();
+            cpu.setDrawFlag(false);
+            if (i % INSTRUCTIONS_PER_FRAME == 0) {
+                cpu.updateTimers();
+            }
+        }
+    }
+
+    private static void run(CPU cpu, Keypad keypad) {
+        var executed = 0;
+        while (executed < INSTRUCTIONS) {
+            if (cpu.isPaused()) {
+                keypad.onKeyPressed(KeypadKey.FIVE);
+                keypad.onKeyReleased(KeypadKey.FIVE);
+            }
+            executed += cpu.run(INSTRUCTIONS - executed);
+            cpu.setDrawFlag(false);
+        }
+    }
+}
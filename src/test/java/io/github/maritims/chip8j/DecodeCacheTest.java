@@ -0,0 +1,74 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecodeCacheTest {
+    @Test
+    void decodesAnInstructionAgainAfterTheProgramOverwritesIt() {
+        var cpu = run(Programs.of(
+                0x6B00, // 200: VB = 0
+                0x7A01, // 202: VA += 1, which becomes VA += 0x10
+                0x3B00, // 204: skip the halt the first time round
+                0x1206, // 206: halt
+                0x7B01, // 208: VB = 1
+                0x607A, // 20A: V0 = 0x7A
+                0x6110, // 20C: V1 = 0x10
+                0xA202, // 20E: I = 0x202
+                0xF155, // 210: write V0 and V1 over the instruction at 0x202
+                0x1202  // 212: jump back to it
+        ));
+
+        assertThat(cpu.getV(0xA)).isEqualTo(0x11);
+        assertThat(cpu.getPC()).isEqualTo(0x206);
+    }
+
+    @Test
+    void decodesAnInstructionAgainAfterTheProgramOverwritesItsSecondByte() {
+        var cpu = run(Programs.of(
+                0x6B00, // 200: VB = 0
+                0x7A01, // 202: VA += 1, which becomes VA += 5
+                0x3B00, // 204: skip the halt the first time round
+                0x1206, // 206: halt
+                0x7B01, // 208: VB = 1
+                0x6005, // 20A: V0 = 5
+                0xA203, // 20C: I = 0x203
+                0xF055, // 20E: write V0 over the second byte of the instruction at 0x202
+                0x1202  // 210: jump back to it
+        ));
+
+        assertThat(cpu.getV(0xA)).isEqualTo(6);
+    }
+
+    @Test
+    void decodesAnInstructionAgainAfterTheProgramOverwritesItAcrossAPageBoundary() {
+        var program = ByteBuffer.allocate(0x10F)
+                .putShort(0x000, (short) 0x6B00)  // 200: VB = 0
+                .putShort(0x002, (short) 0x12FF)  // 202: jump to the instruction straddling 0x300
+                .putShort(0x0FF, (short) 0x7A01)  // 2FF: VA += 1, which becomes VA += 5
+                .putShort(0x101, (short) 0x3B00)  // 301: skip the halt the first time round
+                .putShort(0x103, (short) 0x1303)  // 303: halt
+                .putShort(0x105, (short) 0x7B01)  // 305: VB = 1
+                .putShort(0x107, (short) 0x6005)  // 307: V0 = 5
+                .putShort(0x109, (short) 0xA300)  // 309: I = 0x300
+                .putShort(0x10B, (short) 0xF055)  // 30B: write V0 over the second byte of the instruction at 0x2FF
+                .putShort(0x10D, (short) 0x12FF); // 30D: jump back to it
+
+        var cpu = run(program.array());
+
+        assertThat(cpu.getV(0xA)).isEqualTo(6);
+        assertThat(cpu.getPC()).isEqualTo(0x303);
+    }
+
+    private static CPU run(byte[] program) {
+        var cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(program);
+        for (var i = 0; i < 32; i++) {
+            cpu.cycle();
+        }
+        return cpu;
+    }
+}
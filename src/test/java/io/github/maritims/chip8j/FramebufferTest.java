@@ -0,0 +1,161 @@
+package io.github.maritims.chip8j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FramebufferTest {
+    @Test
+    void xorsASpriteRowAndReportsACollisionWhenAPixelIsTurnedOff() {
+        var framebuffer = new Framebuffer(64, 32);
+
+        assertThat(framebuffer.xorSpriteRow(3, 5, 0b1010_0001, 8, false)).isFalse();
+        assertThat(lit(framebuffer, 5)).isEqualTo("...#.#....#");
+
+        assertThat(framebuffer.xorSpriteRow(4, 5, 0b1000_0000, 8, false)).isFalse();
+        assertThat(lit(framebuffer, 5)).isEqualTo("...###....#");
+
+        assertThat(framebuffer.xorSpriteRow(3, 5, 0b1000_0001, 8, false)).isTrue();
+        assertThat(lit(framebuffer, 5)).isEqualTo("....##");
+        assertThat(framebuffer.takeDirtyRows()).isEqualTo(1L << 5);
+        assertThat(framebuffer.takeDirtyRows()).isZero();
+    }
+
+    @Test
+    void drawsASpriteAcrossTheBoundaryBetweenTwoWords() {
+        var framebuffer = new Framebuffer(128, 64);
+
+        assertThat(framebuffer.xorSpriteRow(60, 0, 0xFF, 8, false)).isFalse();
+        assertThat(framebuffer.getWord(0, 0)).isEqualTo(0xFL);
+        assertThat(framebuffer.getWord(0, 1)).isEqualTo(0xFL << 60);
+
+        assertThat(framebuffer.xorSpriteRow(62, 0, 0b1000_0001, 8, false)).isTrue();
+        assertThat(framebuffer.isSet(62, 0)).isFalse();
+        assertThat(framebuffer.isSet(69, 0)).isTrue();
+        assertThat(framebuffer.isSet(63, 0)).isTrue();
+    }
+
+    @Test
+    void drawsASixteenPixelWideRow() {
+        var framebuffer = new Framebuffer(128, 64);
+
+        framebuffer.xorSpriteRow(56, 1, 0x8001, 16, false);
+
+        assertThat(framebuffer.isSet(56, 1)).isTrue();
+        assertThat(framebuffer.isSet(71, 1)).isTrue();
+        assertThat(framebuffer.getWord(1, 0)).isEqualTo(1L << 7);
+        assertThat(framebuffer.getWord(1, 1)).isEqualTo(1L << 56);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, false", "true, true"})
+    void clipsOrWrapsPixelsPastTheRightEdge(boolean wrap, boolean wrapped) {
+        var framebuffer = new Framebuffer(128, 64);
+        framebuffer.setResolution(64, 32);
+
+        framebuffer.xorSpriteRow(60, 0, 0xFF, 8, wrap);
+
+        assertThat(framebuffer.isSet(63, 0)).isTrue();
+        assertThat(framebuffer.isSet(0, 0)).isEqualTo(wrapped);
+        assertThat(framebuffer.isSet(3, 0)).isEqualTo(wrapped);
+        assertThat(framebuffer.isSet(4, 0)).isFalse();
+        assertThat(framebuffer.getWord(0, 1)).isZero();
+    }
+
+    @Test
+    void drawsToTheSecondPlaneOnly() {
+        var framebuffer = new Framebuffer(64, 32, 2);
+
+        framebuffer.xorSpriteRow(0, 0, 0, 0b11, 2, false);
+        framebuffer.xorSpriteRow(1, 1, 0, 0b11, 2, false);
+
+        assertThat(framebuffer.getPixel(0, 0)).isEqualTo(0b01);
+        assertThat(framebuffer.getPixel(1, 0)).isEqualTo(0b11);
+        assertThat(framebuffer.getPixel(2, 0)).isEqualTo(0b10);
+        assertThat(framebuffer.isSet(2, 0)).isFalse();
+    }
+
+    @Test
+    void scrollsInEveryDirection() {
+        var framebuffer = new Framebuffer(128, 64);
+        framebuffer.xorSpriteRow(62, 10, 0b11, 2, false);
+
+        framebuffer.scrollRight(1, 4);
+        assertThat(framebuffer.isSet(66, 10)).isTrue();
+        assertThat(framebuffer.isSet(67, 10)).isTrue();
+        assertThat(framebuffer.getWord(10, 0)).isZero();
+
+        framebuffer.scrollLeft(1, 4);
+        assertThat(framebuffer.getWord(10, 0)).isEqualTo(0b11);
+        assertThat(framebuffer.getWord(10, 1)).isZero();
+
+        framebuffer.scrollDown(1, 3);
+        assertThat(framebuffer.getWord(13, 0)).isEqualTo(0b11);
+        assertThat(framebuffer.getWord(10, 0)).isZero();
+
+        framebuffer.scrollUp(1, 13);
+        assertThat(framebuffer.getWord(0, 0)).isEqualTo(0b11);
+
+        framebuffer.scrollUp(1, 1);
+        assertThat(framebuffer.getWord(0, 0)).isZero();
+    }
+
+    @Test
+    void scrollsOnlyThePlanesInTheMask() {
+        var framebuffer = new Framebuffer(64, 32, 2);
+        framebuffer.xorSpriteRow(0, 0, 0, 1, 1, false);
+        framebuffer.xorSpriteRow(1, 0, 0, 1, 1, false);
+
+        framebuffer.scrollDown(0b10, 1);
+
+        assertThat(framebuffer.getPixel(0, 0)).isEqualTo(0b01);
+        assertThat(framebuffer.getPixel(0, 1)).isEqualTo(0b10);
+    }
+
+    @Test
+    void matchesAPixelByPixelModel() {
+        var random      = new SplittableRandom(7);
+        var framebuffer = new Framebuffer(128, 64);
+        var model       = new boolean[64][128];
+
+        for (var i = 0; i < 10_000; i++) {
+            var x      = random.nextInt(128);
+            var y      = random.nextInt(64);
+            var width  = random.nextBoolean() ? 8 : 16;
+            var sprite = random.nextLong() & (1L << width) - 1;
+            var wrap   = random.nextBoolean();
+
+            var collision = false;
+            for (var bit = 0; bit < width; bit++) {
+                var column = x + bit;
+                if (column >= 128 && !wrap) {
+                    break;
+                }
+                if ((sprite >>> (width - 1 - bit) & 1) != 0) {
+                    collision |= model[y][column % 128];
+                    model[y][column % 128] ^= true;
+                }
+            }
+
+            assertThat(framebuffer.xorSpriteRow(x, y, sprite, width, wrap)).isEqualTo(collision);
+        }
+
+        for (var y = 0; y < 64; y++) {
+            for (var x = 0; x < 128; x++) {
+                assertThat(framebuffer.isSet(x, y)).as("(%d, %d)", x, y).isEqualTo(model[y][x]);
+            }
+        }
+    }
+
+    private static String lit(Framebuffer framebuffer, int y) {
+        var row = new StringBuilder();
+        for (var x = 0; x < framebuffer.getColumns(); x++) {
+            row.append(framebuffer.isSet(x, y) ? '#' : '.');
+        }
+        return row.toString().replaceAll("\\.+$", "");
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdleLoopTest {
+    private static final int INSTRUCTIONS_PER_FRAME = 12;
+
+    private static final byte[] DELAY_LOOP = Programs.of(
+            0x6005, // 200: V0 = 5
+            0xF015, // 202: delay = V0
+            0xF007, // 204: V0 = delay
+            0x3000, // 206: leave the loop once the delay has run out
+            0x1204, // 208
+            0x7101, // 20A: V1 += 1
+            0x1200  // 20C: wait again
+    );
+
+    @Test
+    void leavesTheMachineInTheSameStateAfterEveryFrame() {
+        var executed = cpu(DELAY_LOOP, false);
+        var skipped  = cpu(DELAY_LOOP, true);
+
+        for (var frame = 0; frame < 600; frame++) {
+            assertThat(skipped.run(INSTRUCTIONS_PER_FRAME)).isEqualTo(executed.run(INSTRUCTIONS_PER_FRAME));
+            assertThat(Programs.snapshot(skipped)).as("frame %d", frame).isEqualTo(Programs.snapshot(executed));
+        }
+
+        assertThat(executed.getV(1)).isBetween(100, 120);
+        assertThat(executed.getSkippedInstructions()).isZero();
+        assertThat(skipped.getSkippedInstructions()).isGreaterThan(600 * INSTRUCTIONS_PER_FRAME / 4);
+    }
+
+    @Test
+    void doesNotSkipALoopWhichChangesTheMachine() {
+        var cpu = cpu(Programs.of(
+                0x6005, // 200: V0 = 5
+                0xF015, // 202: delay = V0
+                0x7101, // 204: V1 += 1
+                0xF007, // 206: V0 = delay
+                0x3000, // 208
+                0x1204, // 20A
+                0x1200  // 20C
+        ), true);
+
+        cpu.run(INSTRUCTIONS_PER_FRAME * 60);
+
+        assertThat(cpu.getSkippedInstructions()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SPACEINVADERS.ch8", "BLITZ.ch8", "Tetris [Fran Dachille, 1991].ch8"})
+    void leavesAGameInTheSameStateAsWithoutSkipping(String rom) {
+        var program      = Programs.load(rom);
+        var instructions = 300_000L;
+        var inputs       = Programs.keyPresses(5_000, instructions);
+        var executed     = new Chip8Machine(INSTRUCTIONS_PER_FRAME, false, false);
+        var skipped      = new Chip8Machine(INSTRUCTIONS_PER_FRAME, false, true);
+        executed.run(program, instructions, 42, inputs);
+        skipped.run(program, instructions, 42, inputs);
+
+        assertThat(Programs.snapshot(skipped.getCpu())).isEqualTo(Programs.snapshot(executed.getCpu()));
+    }
+
+    private static CPU cpu(byte[] program, boolean skipIdleLoops) {
+        return new CPU(64, 32, new Keypad(), 0)
+                .loadProgram(program)
+                .setInstructionsPerFrame(INSTRUCTIONS_PER_FRAME)
+                .setSkipIdleLoops(skipIdleLoops);
+    }
+}
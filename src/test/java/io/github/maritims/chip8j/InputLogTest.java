@@ -0,0 +1,118 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InputLogTest {
+    private static final List<InputEvent> EVENTS = List.of(
+            new InputEvent(0, KeypadKey.FIVE, true),
+            new InputEvent(0, KeypadKey.FIVE, false),
+            InputEvent.timerTick(0),
+            new InputEvent(130, KeypadKey.F, true),
+            new InputEvent(1_000_000, KeypadKey.F, false)
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        var program = Programs.load("SPACEINVADERS.ch8");
+        var path    = write(program, EVENTS, 1_500_000L);
+
+        var recording = InputLog.read(path);
+
+        assertThat(recording.quirks()).isEqualTo(QuirkProfile.CHIP_48);
+        assertThat(recording.seed()).isEqualTo(-42);
+        assertThat(recording.instructionsPerFrame()).isEqualTo(15);
+        assertThat(recording.events()).isEqualTo(EVENTS);
+        assertThat(recording.instructions()).isEqualTo(1_500_000L);
+        assertThat(recording.matches(program)).isTrue();
+        assertThat(recording.matches(Programs.load("BLITZ.ch8"))).isFalse();
+    }
+
+    @Test
+    void readsALogWhichWasCutShortUpToItsLastWholeEvent() throws IOException {
+        var path  = write(Programs.load("SPACEINVADERS.ch8"), EVENTS, 1_500_000L);
+        var bytes = Files.readAllBytes(path);
+        // Drops the end marker and the last two bytes of the final key release.
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+
+        var recording = InputLog.read(path);
+
+        assertThat(recording.events()).isEqualTo(EVENTS.subList(0, 4));
+        assertThat(recording.instructions()).isEqualTo(130);
+    }
+
+    @Test
+    void rejectsEventsOutOfOrder() throws IOException {
+        try (var log = InputLog.create(directory.resolve("session.c8i"), QuirkProfile.MODERN, 0, 10, new byte[0])) {
+            log.append(new InputEvent(10, KeypadKey.ONE, true));
+
+            assertThatThrownBy(() -> log.append(new InputEvent(9, KeypadKey.ONE, false)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsAFileWhichIsNotAnInputLog() throws IOException {
+        var path = directory.resolve("session.c8i");
+        Files.write(path, new byte[64]);
+
+        assertThatThrownBy(() -> InputLog.read(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsAnotherVersion() throws IOException {
+        var path  = write(new byte[0], List.of(), 0);
+        var bytes = Files.readAllBytes(path);
+        bytes[5] = 1;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> InputLog.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unsupported version 1");
+    }
+
+    @Test
+    void replaysToTheStateTheSessionEndedIn() throws IOException {
+        var program      = Programs.load("SPACEINVADERS.ch8");
+        var instructions = 200_000L;
+        var events       = Programs.keyPresses(3_000, instructions);
+        var played       = new Chip8Machine(15, false, false, QuirkProfile.CHIP_48).run(program, instructions, -42, events);
+
+        var recording = InputLog.read(write(program, events, instructions));
+        var first     = recording.replay(program);
+        var second    = recording.replay(program);
+
+        assertThat(first.framebuffer()).isEqualTo(played.framebuffer());
+        assertThat(first.V()).isEqualTo(played.V());
+        assertThat(first.PC()).isEqualTo(played.PC());
+        assertThat(first.instructionCount()).isEqualTo(played.instructionCount());
+        assertThat(second.framebuffer().contentHash()).isEqualTo(first.framebuffer().contentHash());
+        assertThat(second.V()).isEqualTo(first.V());
+        assertThatThrownBy(() -> recording.replay(Programs.load("BLITZ.ch8"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path write(byte[] program, List<InputEvent> events, long instructions) throws IOException {
+        var path = directory.resolve("session.c8i");
+        try (var log = InputLog.create(path, QuirkProfile.CHIP_48, -42, 15, program)) {
+            for (var event : events) {
+                log.append(event);
+            }
+            log.end(instructions);
+        }
+        return path;
+    }
+}
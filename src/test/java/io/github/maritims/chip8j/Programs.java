@@ -0,0 +1,86 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Programs {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Programs() {
+    }
+
+    static byte[] load(String name) {
+        try (var stream = CPU.class.getResourceAsStream("/" + name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("No ROM named " + name + " on the classpath");
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Assembles the opcodes into a program. Opcodes above 0xFFFF are written as two words, for {@code F000 nnnn}.
+     */
+    static byte[] of(long... opcodes) {
+        var words = 0;
+        for (var opcode : opcodes) {
+            words += opcode > 0xFFFF ? 2 : 1;
+        }
+
+        var program = new byte[words * 2];
+        var offset  = 0;
+        for (var opcode : opcodes) {
+            var width = opcode > 0xFFFF ? 4 : 2;
+            for (var i = width - 1; i >= 0; i--) {
+                program[offset++] = (byte) (opcode >>> i * 8);
+            }
+        }
+        return program;
+    }
+
+    /**
+     * @return A script which presses and releases a key every {@code interval} instructions, cycling through the keys
+     * most games use, so programs waiting for a key keep going.
+     */
+    static List<InputEvent> keyPresses(long interval, long until) {
+        var keys   = new KeypadKey[]{KeypadKey.FIVE, KeypadKey.FOUR, KeypadKey.SIX, KeypadKey.EIGHT, KeypadKey.TWO};
+        var events = new ArrayList<InputEvent>();
+        for (var instruction = interval; instruction < until; instruction += interval) {
+            var key = keys[(int) (instruction / interval % keys.length)];
+            events.add(new InputEvent(instruction, key, true));
+            events.add(new InputEvent(instruction + interval / 2, key, false));
+        }
+        return events;
+    }
+
+    static byte[] snapshot(CPU cpu) {
+        var buffer = ByteBuffer.allocate(cpu.getSnapshotSize());
+        cpu.snapshot(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Runs the work a number of times and returns the fewest bytes the calling thread allocated in a run. C2 sometimes
+     * allocates a few hundred bytes on the running thread when it installs code, even in methods which allocate
+     * nothing, so a single run is not enough to tell.
+     */
+    static long leastAllocated(int runs, Runnable work) {
+        var least = Long.MAX_VALUE;
+        for (var run = 0; run < runs; run++) {
+            var before = THREADS.getCurrentThreadAllocatedBytes();
+            work.run();
+            least = Math.min(least, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return least;
+    }
+}
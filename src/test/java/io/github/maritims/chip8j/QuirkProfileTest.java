@@ -0,0 +1,98 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuirkProfileTest {
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void resetsVFAfterLogicOps(QuirkProfile quirks) {
+        var cpu = run(quirks, 0x6F05, 0x6003, 0x6105, 0x8011);
+
+        assertThat(cpu.getV(0)).isEqualTo(7);
+        assertThat(cpu.getV(0xF)).isEqualTo(quirks.resetsVF() ? 0 : 5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void shiftsVyOrVx(QuirkProfile quirks) {
+        var right = run(quirks, 0x6003, 0x6108, 0x8016);
+        var left  = run(quirks, 0x6003, 0x6181, 0x801E);
+
+        assertThat(right.getV(0)).isEqualTo(quirks.shiftsVy() ? 4 : 1);
+        assertThat(right.getV(0xF)).isEqualTo(quirks.shiftsVy() ? 0 : 1);
+        assertThat(left.getV(0)).isEqualTo(quirks.shiftsVy() ? 2 : 6);
+        assertThat(left.getV(0xF)).isEqualTo(quirks.shiftsVy() ? 1 : 0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void movesIAfterStoringAndLoadingRegisters(QuirkProfile quirks) {
+        var expected = switch (quirks.getIndexIncrement()) {
+            case NONE -> 0x300;
+            case X -> 0x302;
+            case X_PLUS_ONE -> 0x303;
+        };
+
+        assertThat(run(quirks, 0xA300, 0xF255).getI()).isEqualTo(expected);
+        assertThat(run(quirks, 0xA300, 0xF265).getI()).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void jumpsRelativeToV0OrVx(QuirkProfile quirks) {
+        var cpu = run(quirks, 0x6004, 0x6206, 0xB220);
+
+        assertThat(cpu.getPC()).isEqualTo(quirks.jumpsWithVx() ? 0x226 : 0x224);
+    }
+
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void onlySwitchesToHighResolutionWithSuperChip(QuirkProfile quirks) {
+        var cpu = run(quirks, 0x00FF);
+
+        assertThat(cpu.getFramebuffer().getColumns()).isEqualTo(quirks.supportsSuperChip() ? 128 : 64);
+        assertThat(cpu.getPC()).isEqualTo(0x202);
+    }
+
+    @ParameterizedTest
+    @EnumSource(QuirkProfile.class)
+    void onlyWrapsSpritesWithXoChip(QuirkProfile quirks) {
+        var cpu = run(quirks,
+                0x603E, // 200: V0 = 62
+                0x6100, // 202: V1 = 0
+                0xA20A, // 204: I = 0x20A
+                0xD011, // 206: draw one row
+                0x1208, // 208: halt
+                0xFF00  // 20A: the sprite
+        );
+
+        assertThat(cpu.getFramebuffer().isSet(63, 0)).isTrue();
+        assertThat(cpu.getFramebuffer().isSet(0, 0)).isEqualTo(quirks.supportsXoChip());
+        assertThat(cpu.getFramebuffer().getPlanes()).isEqualTo(quirks.supportsXoChip() ? 2 : 1);
+    }
+
+    @Test
+    void leavesPlainChip8RomsAloneByDefault() {
+        var cpu = new CPU(64, 32, new Keypad(), 0);
+
+        assertThat(cpu.getQuirkProfile()).isEqualTo(QuirkProfile.MODERN);
+        assertThat(cpu.getFramebuffer().getMaxColumns()).isEqualTo(64);
+        assertThat(cpu.getFramebuffer().getMaxRows()).isEqualTo(32);
+    }
+
+    /**
+     * Executes every instruction of the program once.
+     */
+    private static CPU run(QuirkProfile quirks, long... opcodes) {
+        var cpu = new CPU(64, 32, new Keypad(), 0, quirks).loadProgram(Programs.of(opcodes));
+        for (var i = 0; i < opcodes.length; i++) {
+            cpu.cycle();
+        }
+        return cpu;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.event.EventBus;
+import io.github.maritims.chip8j.event.EventType;
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecompilerTest {
+    private static final long INSTRUCTIONS = 300_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SPACEINVADERS.ch8", "BLITZ.ch8", "Tetris [Fran Dachille, 1991].ch8", "3-corax+.ch8", "4-flags.ch8", "test_opcode.ch8"})
+    void leavesTheMachineInTheSameStateAsTheInterpreter(String rom) {
+        var program     = Programs.load(rom);
+        var inputs      = Programs.keyPresses(5_000, INSTRUCTIONS);
+        var interpreted = new Chip8Machine(12, false);
+        var compiled    = new Chip8Machine(12, true);
+        interpreted.run(program, INSTRUCTIONS, 42, inputs);
+        compiled.run(program, INSTRUCTIONS, 42, inputs);
+
+        assertThat(Programs.snapshot(compiled.getCpu())).isEqualTo(Programs.snapshot(interpreted.getCpu()));
+    }
+
+    @Test
+    void compilesTheHotLoopsOfAGame() {
+        var machine = new Chip8Machine(12, true);
+        machine.run(Programs.load("SPACEINVADERS.ch8"), INSTRUCTIONS, 42, Programs.keyPresses(5_000, INSTRUCTIONS));
+
+        assertThat(machine.getCpu().getRecompiler().getCompiledBlocks()).isPositive();
+    }
+
+    @Test
+    void leavesTheSameStateAsTheInterpreterWhenAnInstructionThrowsMidBlock() {
+        var interpreted = runUntilThrown(false);
+        var compiled    = runUntilThrown(true);
+
+        assertThat(compiled.getRecompiler().getCompiledBlocks()).isPositive();
+        assertThat(compiled.getPC()).isEqualTo(0x204);
+        assertThat(compiled.getOpcode()).isEqualTo(0xF018);
+        assertThat(Programs.snapshot(compiled)).isEqualTo(Programs.snapshot(interpreted));
+    }
+
+    @Test
+    void dropsACompiledBlockWhenTheProgramOverwritesIt() {
+        var program = Programs.of(
+                0x6A00, // 200: VA = 0
+                0x6C00, // 202: VC = 0
+                0x7A01, // 204: VA += 1, which becomes VA += 0x10 once the loop has run hot
+                0x7C01, // 206: VC += 1
+                0x3C20, // 208: leave the loop after 32 passes
+                0x1204, // 20A
+                0x3D00, // 20C: skip the halt the first time round
+                0x120E, // 20E: halt
+                0x6D01, // 210: VD = 1
+                0x607A, // 212: V0 = 0x7A
+                0x6110, // 214: V1 = 0x10
+                0xA204, // 216: I = 0x204
+                0xF155, // 218: write V0 and V1 over the instruction at 0x204
+                0x6C00, // 21A: VC = 0
+                0x1204  // 21C: run the loop again
+        );
+
+        var cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(program).enableRecompiler();
+        cpu.run(1_000);
+
+        assertThat(cpu.getPC()).isEqualTo(0x20E);
+        assertThat(cpu.getV(0xA)).isEqualTo((0x20 + 0x20 * 0x10) & 0xFF);
+    }
+
+    private static CPU runUntilThrown(boolean useRecompiler) {
+        var program = Programs.of(
+                0x6005, // 200: V0 = 5
+                0xF018, // 202: start the sound, which publishes an event
+                0x6100, // 204: V1 = 0
+                0xF118, // 206: stop the sound
+                0x7201, // 208: V2 += 1
+                0x1200  // 20A
+        );
+
+        var failing = new boolean[1];
+        var events  = new EventBus() {
+            @Override
+            public boolean publish(EventType type, int value, long instruction) {
+                if (failing[0]) {
+                    throw new IllegalStateException("The event bus failed");
+                }
+                return super.publish(type, value, instruction);
+            }
+        };
+        var cpu = new CPU(64, 32, new Keypad(), 0).loadProgram(program).setEventBus(events);
+        if (useRecompiler) {
+            cpu.enableRecompiler();
+        }
+
+        cpu.run(600);
+        failing[0] = true;
+        assertThatThrownBy(() -> cpu.run(600)).isInstanceOf(IllegalStateException.class);
+        return cpu;
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RewindBufferTest {
+    private static final int INSTRUCTIONS_PER_FRAME = 11;
+    private static final int KEYFRAME_INTERVAL      = 10;
+
+    private final Keypad keypad = new Keypad();
+    private final CPU    cpu    = new CPU(64, 32, keypad, 1)
+            .loadProgram(Programs.load("SPACEINVADERS.ch8"))
+            .setInstructionsPerFrame(INSTRUCTIONS_PER_FRAME);
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 20_000, 100_000, 16L * 1024 * 1024})
+    void stepsBackThroughEveryFrameItKept(long maxBytes) {
+        var rewindBuffer = new RewindBuffer(cpu, KEYFRAME_INTERVAL, maxBytes);
+        var states       = new ArrayList<byte[]>();
+        for (var frame = 0; frame < 95; frame++) {
+            runFrame();
+            rewindBuffer.record();
+            states.add(Programs.snapshot(cpu));
+
+            assertThat(rewindBuffer.getFrames()).isPositive();
+            if (rewindBuffer.getFrames() > 1) {
+                assertThat(rewindBuffer.getBytes()).isLessThanOrEqualTo(maxBytes);
+            }
+        }
+
+        var kept  = rewindBuffer.getFrames();
+        var steps = 0;
+        while (rewindBuffer.stepBack()) {
+            steps++;
+            assertThat(Programs.snapshot(cpu)).isEqualTo(states.get(states.size() - 1 - steps));
+        }
+        assertThat(steps).isEqualTo(kept - 1);
+    }
+
+    @Test
+    void keepsTheKeyframeTheNewestFrameIsEncodedAgainst() {
+        // Room for a little more than one keyframe and its deltas, so every drop leaves only the newest of them.
+        var rewindBuffer = new RewindBuffer(cpu, KEYFRAME_INTERVAL, cpu.getSnapshotSize() * 3L / 2);
+        for (var frame = 0; frame < 95; frame++) {
+            runFrame();
+            rewindBuffer.record();
+            assertThat(rewindBuffer.getFrames()).isGreaterThanOrEqualTo(frame % KEYFRAME_INTERVAL + 1);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 100_000})
+    void recordsWithoutAllocatingOnceTheHistoryIsFull(long maxBytes) {
+        var rewindBuffer = new RewindBuffer(cpu, KEYFRAME_INTERVAL, maxBytes);
+        for (var frame = 0; frame < 2_000; frame++) {
+            runFrame();
+            rewindBuffer.record();
+        }
+
+        var allocated = Programs.leastAllocated(5, () -> {
+            for (var frame = 0; frame < 200; frame++) {
+                runFrame();
+                rewindBuffer.record();
+            }
+        });
+        assertThat(allocated).isZero();
+    }
+
+    private void runFrame() {
+        if (cpu.isPaused()) {
+            keypad.onKeyReleased(KeypadKey.FIVE);
+        }
+        cpu.run(INSTRUCTIONS_PER_FRAME);
+        cpu.setDrawFlag(false);
+    }
+}
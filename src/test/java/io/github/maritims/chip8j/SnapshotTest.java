@@ -0,0 +1,110 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import io.github.maritims.chip8j.util.SplitMix64;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotTest {
+    private static final byte[] RANDOM = Programs.of(
+            0xC0FF, // 200: V0 = random
+            0xC1FF, // 202: V1 = random
+            0xC2FF, // 204: V2 = random
+            0xC30F, // 206: V3 = random & 0x0F
+            0x1200  // 208: again
+    );
+
+    @Test
+    void drawsTheSameRandomNumbersFromTheSameSeed() {
+        var first  = run(RANDOM, 1, 401);
+        var second = run(RANDOM, 1, 401);
+        var other  = run(RANDOM, 2, 401);
+
+        assertThat(Programs.snapshot(second)).isEqualTo(Programs.snapshot(first));
+        assertThat(Programs.snapshot(other)).isNotEqualTo(Programs.snapshot(first));
+        assertThat(first.getV(3)).isLessThan(0x10);
+    }
+
+    @Test
+    void generatesTheReferenceSplitMix64Sequence() {
+        var random = new SplitMix64(0);
+
+        assertThat(random.nextLong()).isEqualTo(0xE220A8397B1DCDAFL);
+        assertThat(random.nextLong()).isEqualTo(0x6E789E6AA1B965F4L);
+
+        var restored = new SplitMix64(42);
+        restored.setState(random.getState());
+        assertThat(restored.nextLong()).isEqualTo(random.nextLong());
+    }
+
+    @Test
+    void continuesExactlyWhereTheSnapshotWasTaken() {
+        var program  = Programs.load("SPACEINVADERS.ch8");
+        var original = run(program, 1, 100_000);
+        var snapshot = Programs.snapshot(original);
+
+        var restored = new CPU(64, 32, new Keypad(), 2).loadProgram(program);
+        restored.restore(ByteBuffer.wrap(snapshot));
+        assertThat(Programs.snapshot(restored)).isEqualTo(snapshot);
+
+        continueRunning(original);
+        continueRunning(restored);
+        assertThat(Programs.snapshot(restored)).isEqualTo(Programs.snapshot(original));
+    }
+
+    @Test
+    void roundTripsThroughAFile(@TempDir Path directory) throws IOException {
+        var original = run(RANDOM, 1, 1_001);
+        var path     = directory.resolve("state.c8s");
+        SnapshotFile.write(path, original);
+
+        var restored = new CPU(64, 32, new Keypad(), 2);
+        SnapshotFile.read(path, restored);
+
+        assertThat(Programs.snapshot(restored)).isEqualTo(Programs.snapshot(original));
+    }
+
+    @Test
+    void rejectsASnapshotOfADifferentlySizedMachine() {
+        var xoChip = new CPU(64, 32, new Keypad(), 1, QuirkProfile.XO_CHIP);
+        var modern = new CPU(64, 32, new Keypad(), 1, QuirkProfile.MODERN);
+
+        assertThatThrownBy(() -> modern.restore(ByteBuffer.wrap(Programs.snapshot(xoChip))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsSomethingWhichIsNotASnapshot() {
+        var cpu      = new CPU(64, 32, new Keypad(), 1);
+        var snapshot = Programs.snapshot(cpu);
+        snapshot[0] ^= 0x7F;
+
+        assertThatThrownBy(() -> cpu.restore(ByteBuffer.wrap(snapshot)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported snapshot");
+    }
+
+    private static CPU run(byte[] program, long seed, int instructions) {
+        var cpu = new CPU(64, 32, new Keypad(), seed).loadProgram(program);
+        for (var i = 0; i < instructions; i++) {
+            cpu.cycle();
+        }
+        return cpu;
+    }
+
+    private static void continueRunning(CPU cpu) {
+        for (var i = 0; i < 50_000; i++) {
+            cpu.cycle();
+            if (i % 11 == 0) {
+                cpu.updateTimers();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuperChipTest {
+    @Test
+    void switchesBetweenResolutionsAndClearsTheScreen() {
+        var cpu = cpu(
+                0x00FF, // 200: high resolution
+                0x6000, // 202: V0 = 0
+                0xA000, // 204: I = the font for 0
+                0xD005, // 206: draw it
+                0x00FE  // 208: low resolution
+        );
+        var framebuffer = cpu.getFramebuffer();
+
+        run(cpu, 1);
+        assertThat(framebuffer.getColumns()).isEqualTo(128);
+        assertThat(framebuffer.getRows()).isEqualTo(64);
+
+        run(cpu, 3);
+        assertThat(framebuffer.isSet(0, 0)).isTrue();
+
+        run(cpu, 1);
+        assertThat(framebuffer.getColumns()).isEqualTo(64);
+        assertThat(framebuffer.getRows()).isEqualTo(32);
+        assertThat(framebuffer.isSet(0, 0)).isFalse();
+    }
+
+    @Test
+    void drawsASixteenBySixteenSpriteAndReportsCollisions() {
+        var cpu = cpu(
+                0x00FF, // 200: high resolution
+                0x6078, // 202: V0 = 120
+                0x6108, // 204: V1 = 8
+                0xA220, // 206: I = the sprite
+                0xD010, // 208: draw it
+                0x6F00, // 20A: VF = 0
+                0x6000, // 20C: V0 = 0
+                0xD010, // 20E: draw it
+                0xD010, // 210: draw it again
+                0x1212, // 212: halt
+                0, 0, 0, 0, 0, 0,
+                // 220: a hollow square
+                0xFFFF, 0x8001, 0x8001, 0x8001, 0x8001, 0x8001, 0x8001, 0x8001,
+                0x8001, 0x8001, 0x8001, 0x8001, 0x8001, 0x8001, 0x8001, 0xFFFF
+        );
+        var framebuffer = cpu.getFramebuffer();
+
+        run(cpu, 5);
+        assertThat(framebuffer.isSet(120, 8)).isTrue();
+        assertThat(framebuffer.isSet(127, 8)).isTrue();
+        assertThat(framebuffer.isSet(120, 23)).isTrue();
+        assertThat(framebuffer.isSet(121, 9)).isFalse();
+        assertThat(framebuffer.isSet(7, 8)).as("clipped rather than wrapped").isFalse();
+        assertThat(cpu.getV(0xF)).isZero();
+
+        run(cpu, 3);
+        assertThat(framebuffer.isSet(0, 8)).isTrue();
+        assertThat(framebuffer.isSet(15, 23)).isTrue();
+        assertThat(framebuffer.isSet(16, 8)).isFalse();
+        assertThat(cpu.getV(0xF)).isZero();
+
+        run(cpu, 1);
+        assertThat(framebuffer.isSet(0, 8)).isFalse();
+        assertThat(framebuffer.isSet(15, 23)).isFalse();
+        assertThat(cpu.getV(0xF)).isEqualTo(1);
+    }
+
+    @Test
+    void scrollsDownRightAndLeft() {
+        var cpu = cpu(
+                0x00FF, // 200: high resolution
+                0x603E, // 202: V0 = 62
+                0x610A, // 204: V1 = 10
+                0xA212, // 206: I = the sprite
+                0xD011, // 208: draw one pixel
+                0x00C4, // 20A: scroll down 4
+                0x00FB, // 20C: scroll right 4
+                0x00FC, // 20E: scroll left 4
+                0x1210, // 210: halt
+                0x8000  // 212: the sprite
+        );
+        var framebuffer = cpu.getFramebuffer();
+
+        run(cpu, 5);
+        assertThat(framebuffer.isSet(62, 10)).isTrue();
+
+        run(cpu, 1);
+        assertThat(framebuffer.isSet(62, 10)).isFalse();
+        assertThat(framebuffer.isSet(62, 14)).isTrue();
+
+        run(cpu, 1);
+        assertThat(framebuffer.isSet(62, 14)).isFalse();
+        assertThat(framebuffer.isSet(66, 14)).isTrue();
+
+        run(cpu, 1);
+        assertThat(framebuffer.isSet(66, 14)).isFalse();
+        assertThat(framebuffer.isSet(62, 14)).isTrue();
+    }
+
+    @Test
+    void pointsIAtTheLargeFont() {
+        var cpu = cpu(
+                0x6007, // 200: V0 = 7
+                0xF030  // 202: I = the large 7
+        );
+
+        run(cpu, 2);
+
+        assertThat(cpu.getI()).isEqualTo(CPU.LARGE_FONT_ADDRESS + 70);
+    }
+
+    @Test
+    void savesAndRestoresTheFlags() {
+        var cpu = cpu(
+                0x6011, // 200
+                0x6122, // 202
+                0x6233, // 204
+                0xF275, // 206: save V0 to V2
+                0x6000, // 208
+                0x6100, // 20A
+                0x6200, // 20C
+                0xF185  // 20E: restore V0 and V1
+        );
+
+        run(cpu, 8);
+
+        assertThat(cpu.getV(0)).isEqualTo(0x11);
+        assertThat(cpu.getV(1)).isEqualTo(0x22);
+        assertThat(cpu.getV(2)).isZero();
+    }
+
+    @Test
+    void staysOnTheExitInstruction() {
+        var cpu = cpu(0x00FD);
+
+        run(cpu, 10);
+
+        assertThat(cpu.getPC()).isEqualTo(0x200);
+        assertThat(cpu.getInstructionCount()).isEqualTo(10);
+    }
+
+    private static CPU cpu(long... opcodes) {
+        return new CPU(64, 32, new Keypad(), 0, QuirkProfile.SUPER_CHIP).loadProgram(Programs.of(opcodes));
+    }
+
+    private static void run(CPU cpu, int instructions) {
+        for (var i = 0; i < instructions; i++) {
+            cpu.cycle();
+        }
+    }
+}
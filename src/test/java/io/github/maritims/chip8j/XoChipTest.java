@@ -0,0 +1,154 @@
+package io.github.maritims.chip8j;
+
+import io.github.maritims.chip8j.keypad.Keypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XoChipTest {
+    @Test
+    void loadsALongAddressIntoI() {
+        var cpu = cpu(
+                0xF000_1234L, // 200: I = 0x1234
+                0x6001        // 204: V0 = 1
+        );
+
+        run(cpu, 2);
+
+        assertThat(cpu.getI()).isEqualTo(0x1234);
+        assertThat(cpu.getV(0)).isEqualTo(1);
+        assertThat(cpu.getPC()).isEqualTo(0x206);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0x3005, 0x4006, 0x5000, 0x9010, 0xE0A1})
+    void skipsAllFourBytesOfALongLoad(int skip) {
+        var cpu = cpu(
+                0x6005,       // 200: V0 = 5
+                skip,         // 202: a skip which is taken
+                0xF000_1234L, // 204: skipped
+                0x6101        // 208: V1 = 1
+        );
+
+        run(cpu, 3);
+
+        assertThat(cpu.getI()).isZero();
+        assertThat(cpu.getV(1)).isEqualTo(1);
+        assertThat(cpu.getPC()).isEqualTo(0x20A);
+    }
+
+    @Test
+    void storesAndLoadsRegisterRangesInBothDirections() {
+        var cpu = cpu(
+                0x6011, // 200
+                0x6122, // 202
+                0x6233, // 204
+                0xA300, // 206: I = 0x300
+                0x5022, // 208: store V0 to V2
+                0x5533, // 20A: load V5 down to V3
+                0xA310, // 20C: I = 0x310
+                0x5202, // 20E: store V2 down to V0
+                0x5683  // 210: load V6 to V8
+        );
+
+        run(cpu, 9);
+
+        assertThat(cpu.getI()).isEqualTo(0x310);
+        assertThat(cpu.getV(5)).isEqualTo(0x11);
+        assertThat(cpu.getV(4)).isEqualTo(0x22);
+        assertThat(cpu.getV(3)).isEqualTo(0x33);
+        assertThat(cpu.getV(6)).isEqualTo(0x33);
+        assertThat(cpu.getV(7)).isEqualTo(0x22);
+        assertThat(cpu.getV(8)).isEqualTo(0x11);
+    }
+
+    @Test
+    void drawsIntoTheSelectedPlanes() {
+        var cpu = cpu(
+                0x6000, // 200: V0 = 0
+                0xA212, // 202: I = the sprites
+                0xF201, // 204: select the second plane
+                0xD011, // 206: draw one row
+                0x6008, // 208: V0 = 8
+                0xF301, // 20A: select both planes
+                0xD011, // 20C: draw one row into each
+                0x120E, // 20E: halt
+                0x0000, // 210
+                0xC0F0  // 212: the sprites
+        );
+        var framebuffer = cpu.getFramebuffer();
+
+        run(cpu, 4);
+        assertThat(framebuffer.getPixel(0, 0)).isEqualTo(0b10);
+        assertThat(framebuffer.getPixel(2, 0)).isZero();
+
+        run(cpu, 3);
+        assertThat(framebuffer.getPixel(8, 0)).isEqualTo(0b11);
+        assertThat(framebuffer.getPixel(10, 0)).isEqualTo(0b10);
+        assertThat(framebuffer.getPixel(12, 0)).isZero();
+    }
+
+    @Test
+    void scrollsUp() {
+        var cpu = cpu(
+                0x6000, // 200: V0 = 0
+                0x6105, // 202: V1 = 5
+                0xA20C, // 204: I = the sprite
+                0xD011, // 206: draw one pixel
+                0x00D3, // 208: scroll up 3
+                0x120A, // 20A: halt
+                0x8000  // 20C: the sprite
+        );
+
+        run(cpu, 5);
+
+        assertThat(cpu.getFramebuffer().isSet(0, 5)).isFalse();
+        assertThat(cpu.getFramebuffer().isSet(0, 2)).isTrue();
+    }
+
+    @Test
+    void addressesSixtyFourKilobytesOfMemory() {
+        var cpu = cpu(
+                0xF000_FFF0L, // 200: I = 0xFFF0
+                0x6042,       // 204: V0 = 0x42
+                0xF055,       // 206: store V0
+                0x6000,       // 208: V0 = 0
+                0xF000_FFF0L, // 20A: I = 0xFFF0
+                0xF065        // 20E: load V0
+        );
+
+        run(cpu, 6);
+
+        assertThat(cpu.getV(0)).isEqualTo(0x42);
+        assertThat(cpu.getI()).isEqualTo(0xFFF1);
+    }
+
+    @Test
+    void loadsTheAudioPatternAndPitch() {
+        var cpu = cpu(
+                0xA20A, // 200: I = the pattern
+                0xF002, // 202: load the pattern
+                0x6080, // 204: V0 = 0x80
+                0xF03A, // 206: pitch = V0
+                0x1208, // 208: halt
+                0x0123, 0x4567, 0x89AB, 0xCDEF, 0xFEDC, 0xBA98, 0x7654, 0x3210
+        );
+
+        run(cpu, 4);
+
+        assertThat(cpu.getAudioPattern()).isEqualTo(Programs.of(0x0123, 0x4567, 0x89AB, 0xCDEF, 0xFEDC, 0xBA98, 0x7654, 0x3210));
+        assertThat(cpu.getPitch()).isEqualTo(0x80);
+    }
+
+    private static CPU cpu(long... opcodes) {
+        return new CPU(64, 32, new Keypad(), 0, QuirkProfile.XO_CHIP).loadProgram(Programs.of(opcodes));
+    }
+
+    private static void run(CPU cpu, int instructions) {
+        for (var i = 0; i < instructions; i++) {
+            cpu.cycle();
+        }
+    }
+}
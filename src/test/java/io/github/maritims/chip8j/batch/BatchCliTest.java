@@ -0,0 +1,66 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.keypad.InputEvent;
+import io.github.maritims.chip8j.keypad.KeypadKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchCliTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAScript() throws IOException {
+        var script = write("""
+                # Start the game
+                1200 5 down
+
+                1500 5 up
+                1500 f down
+                """);
+
+        assertThat(BatchCli.readScript(script)).containsExactly(
+                new InputEvent(1200, KeypadKey.FIVE, true),
+                new InputEvent(1500, KeypadKey.FIVE, false),
+                new InputEvent(1500, KeypadKey.F, true)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1500 5", "1500 5 pressed", "1500 x down", "soon 5 down", "1500 10 down", "1100 5 down"})
+    void rejectsAMalformedLineWithItsNumber(String line) throws IOException {
+        var script = write("1200 5 down\n# comment\n" + line + "\n");
+
+        assertThatThrownBy(() -> BatchCli.readScript(script))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith(script + ":3: ");
+    }
+
+    @Test
+    void findsRomsOfEveryVariantInADirectory() throws IOException {
+        Files.createDirectories(directory.resolve("games"));
+        for (var name : new String[]{"pong.ch8", "games/maze.C8", "games/ant.sc8", "games/alien.xo8", "readme.txt"}) {
+            Files.write(directory.resolve(name), new byte[]{0x12, 0x00});
+        }
+
+        assertThat(BatchCli.findRoms(directory)).containsExactly(
+                directory.resolve("games/alien.xo8"),
+                directory.resolve("games/ant.sc8"),
+                directory.resolve("games/maze.C8"),
+                directory.resolve("pong.ch8")
+        );
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("input.txt"), content);
+    }
+}
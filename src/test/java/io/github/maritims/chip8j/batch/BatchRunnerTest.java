@@ -0,0 +1,94 @@
+package io.github.maritims.chip8j.batch;
+
+import io.github.maritims.chip8j.Chip8Machine;
+import io.github.maritims.chip8j.MachineState;
+import io.github.maritims.chip8j.QuirkProfile;
+import io.github.maritims.chip8j.metrics.EmulatorMetrics;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchRunnerTest {
+    private static final byte[] COUNTER = {
+            0x70, 0x01, // 200: V0 += 1
+            0x12, 0x00  // 202: again
+    };
+
+    @Test
+    void registersOneMetricsBeanWhichSumsUpEveryJob() throws Exception {
+        var server       = ManagementFactory.getPlatformMBeanServer();
+        var registered   = new ArrayList<ObjectName>();
+        var unregistered = new ArrayList<ObjectName>();
+        NotificationListener listener = (notification, handback) -> {
+            var name = ((MBeanServerNotification) notification).getMBeanName();
+            if (!name.getDomain().equals(EmulatorMetrics.DOMAIN)) {
+                return;
+            }
+            synchronized (registered) {
+                (notification.getType().equals(MBeanServerNotification.REGISTRATION_NOTIFICATION) ? registered : unregistered).add(name);
+            }
+        };
+        server.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, null, null);
+
+        var results = new ArrayList<BatchResult>();
+        EmulatorMetrics metrics;
+        try (var runner = new BatchRunner(2)) {
+            metrics = runner.getMetrics();
+            runner.run(List.of(job("first"), job("second"), job("third")), results::add);
+        } finally {
+            server.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.error()).isNull());
+        assertThat(registered).containsExactly(metrics.getObjectName());
+        assertThat(metrics.getInstructions()).isEqualTo(300_000);
+        assertThat(unregistered).containsExactlyInAnyOrderElementsOf(registered);
+        assertThat(registered).noneMatch(server::isRegistered);
+    }
+
+    @Test
+    void runsAJobWithTheRecompilerToTheSameState() {
+        var metrics     = new EmulatorMetrics();
+        var interpreted = BatchRunner.execute(job("interpreted", false), metrics);
+        var compiled    = BatchRunner.execute(job("compiled", true), metrics);
+
+        assertThat(compiled.state().V()).containsExactly(interpreted.state().V());
+        assertThat(compiled.state().PC()).isEqualTo(interpreted.state().PC());
+        assertThat(compiled.state().instructionCount()).isEqualTo(interpreted.state().instructionCount());
+    }
+
+    @Test
+    void leavesSkippedInstructionsOutOfTheInstructionsPerSecond() {
+        var state  = new MachineState(null, new int[16], 0, 0x200, 0, 0, 3_000, 2_000, false);
+        var result = new BatchResult(job("idle"), state, null, 1_000_000_000);
+
+        assertThat(result.instructionsPerSecond()).isEqualTo(1_000);
+    }
+
+    @Test
+    void recordsTheFramesOfAHeadlessRun() {
+        var metrics = new EmulatorMetrics();
+        var machine = new Chip8Machine(10, false, false, QuirkProfile.MODERN).setMetrics(metrics);
+
+        machine.run(COUNTER, 12_345, 0);
+
+        assertThat(metrics.getInstructions()).isEqualTo(12_345);
+        assertThat(metrics.getFrames()).isEqualTo(1_234);
+    }
+
+    private static BatchJob job(String name) {
+        return job(name, false);
+    }
+
+    private static BatchJob job(String name, boolean useRecompiler) {
+        return new BatchJob(name, COUNTER, 100_000, Chip8Machine.DEFAULT_INSTRUCTIONS_PER_FRAME, 0, List.of(), useRecompiler, false, QuirkProfile.MODERN);
+    }
+}
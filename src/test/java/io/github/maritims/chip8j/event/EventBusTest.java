@@ -0,0 +1,55 @@
+package io.github.maritims.chip8j.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventBusTest {
+    @Test
+    void deliversChangesPublishedWhileTheEventDispatchThreadWasBusy() throws InterruptedException {
+        var sounds  = new LinkedBlockingQueue<Integer>();
+        var busy    = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var frames  = new CountDownLatch(2);
+
+        try (var bus = new EventBus()) {
+            bus.addListener((type, value, instruction, last) -> {
+                if (type == EventType.FRAME) {
+                    frames.countDown();
+                }
+            });
+            bus.addFrameListener(snapshot -> {
+                sounds.add(snapshot.get(EventType.SOUND));
+                busy.countDown();
+                awaitQuietly(release);
+            });
+            bus.start();
+
+            bus.publish(EventType.SOUND, 1, 0);
+            bus.endFrame(0, 0);
+            assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // The last frame ends while the first one is still being delivered.
+            bus.publish(EventType.SOUND, 0, 1);
+            bus.endFrame(0, 1);
+            assertThat(frames.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(20);
+            release.countDown();
+
+            assertThat(sounds.poll(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(sounds.poll(5, TimeUnit.SECONDS)).isEqualTo(0);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}